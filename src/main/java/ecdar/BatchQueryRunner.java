@@ -0,0 +1,346 @@
+package ecdar;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import ecdar.backend.BackendException;
+import ecdar.backend.BackendHelper;
+import ecdar.backend.Engine;
+import ecdar.backend.QueryPriority;
+import ecdar.issues.ExitStatusCodes;
+import ecdar.utility.helpers.StringValidator;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the queries of a project from the command line without starting the user interface.
+ * The queries are sent to the engines that they are bound to in the project, with a configurable number
+ * of queries in flight at a time, and the results are written as JSON and/or JUnit XML with timings.
+ * The process exits with 0 if all queries are satisfied, with 1 if any query is not, and with 2 on invalid arguments.
+ */
+public class BatchQueryRunner {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: BatchQueryRunner <project folder or packed project file> [options]",
+            "  --engines <file>      JSON array of engines, as stored by the engine options dialog.",
+            "                        Defaults to the engines saved in the preferences of the user.",
+            "  --filter <regex>      Only run the queries, e.g. \"refinement: A <= B\", that contain a match of the expression",
+            "  --parallelism <n>     Maximum number of queries running at a time (default: number of processors)",
+            "  --timeout <seconds>   Time to wait for each query before it is cancelled (default: 600)",
+            "  --json <file>         Write the results as JSON",
+            "  --junit <file>        Write the results as JUnit XML");
+    private static final int INVALID_ARGUMENTS = 2;
+    private static final int QUERIES_NOT_SATISFIED = 1;
+
+    private File projectFolder;
+    private File enginesFile;
+    private Pattern filter;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long timeoutSeconds = 600;
+    private File jsonOutput;
+    private File junitOutput;
+
+    /**
+     * The outcome of a single query
+     */
+    private static class Result {
+        final Query query;
+        final String engine;
+        QueryState state = QueryState.UNKNOWN;
+        String message = "";
+        long timeMillis;
+        private boolean finished = false;
+
+        Result(Query query) {
+            this.query = query;
+            this.engine = query.getEngine() == null ? "" : query.getEngine().getName();
+        }
+
+        /**
+         * Sets the outcome of the query, unless it has already been set, for instance because the query timed out
+         *
+         * @return whether the outcome was set
+         */
+        synchronized boolean finish(QueryState state, String message, long startNanos) {
+            if (finished) return false;
+
+            this.finished = true;
+            this.state = state;
+            this.message = message;
+            this.timeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            return true;
+        }
+
+        String getQueryText() {
+            return query.getType() == null ? query.getQuery() : query.getType().getQueryName() + ": " + query.getQuery();
+        }
+    }
+
+    public static void main(final String[] args) {
+        BatchQueryRunner runner = new BatchQueryRunner();
+
+        try {
+            runner.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(INVALID_ARGUMENTS);
+        }
+
+        int statusCode;
+        try {
+            statusCode = runner.run();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            statusCode = INVALID_ARGUMENTS;
+        } catch (IOException | XMLStreamException e) {
+            e.printStackTrace();
+            statusCode = ExitStatusCodes.GRACEFUL_SHUTDOWN_FAILED.getStatusCode();
+        }
+
+        try {
+            BackendHelper.clearEngineConnections();
+        } catch (BackendException e) {
+            statusCode = ExitStatusCodes.CLOSE_ENGINE_CONNECTIONS_FAILED.getStatusCode();
+        }
+
+        System.exit(statusCode);
+    }
+
+    private void parseArguments(final String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+
+            if (!arg.startsWith("--")) {
+                if (projectFolder != null) throw new IllegalArgumentException("More than one project folder given: " + arg);
+                projectFolder = new File(arg);
+                continue;
+            }
+
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value of " + arg);
+            String value = args[++i];
+
+            try {
+                switch (arg) {
+                    case "--engines":
+                        enginesFile = new File(value);
+                        break;
+                    case "--filter":
+                        filter = Pattern.compile(value);
+                        break;
+                    case "--parallelism":
+                        parallelism = Integer.parseInt(value);
+                        if (parallelism < 1) throw new IllegalArgumentException("The parallelism must be at least 1");
+                        break;
+                    case "--timeout":
+                        timeoutSeconds = Long.parseLong(value);
+                        if (timeoutSeconds < 1) throw new IllegalArgumentException("The timeout must be at least 1 second");
+                        break;
+                    case "--json":
+                        jsonOutput = new File(value);
+                        break;
+                    case "--junit":
+                        junitOutput = new File(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + arg + ": " + value);
+            }
+        }
+
+        if (projectFolder == null) throw new IllegalArgumentException("No project folder given");
+        if (!projectFolder.exists()) throw new IllegalArgumentException("No such project: " + projectFolder);
+    }
+
+    private int run() throws IOException, XMLStreamException {
+        setUpEngines();
+        Ecdar.initializeHeadlessProject(projectFolder);
+
+        List<Query> queries = new ArrayList<>();
+        for (Query query : Ecdar.getProject().getQueries()) {
+            if (filter == null || filter.matcher(new Result(query).getQueryText()).find()) queries.add(query);
+        }
+
+        System.out.println("Running " + queries.size() + " queries of " + projectFolder.getName() + " with parallelism " + parallelism);
+
+        long start = System.nanoTime();
+        List<Result> results = runQueries(queries);
+        long totalTimeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long satisfied = results.stream().filter(result -> result.state == QueryState.SUCCESSFUL).count();
+        System.out.println(satisfied + " of " + results.size() + " queries satisfied in " + totalTimeMillis + " ms");
+
+        if (jsonOutput != null) writeJson(results, totalTimeMillis);
+        if (junitOutput != null) writeJUnitXml(results, totalTimeMillis);
+
+        return satisfied == results.size() ? ExitStatusCodes.SHUTDOWN_SUCCESSFUL.getStatusCode() : QUERIES_NOT_SATISFIED;
+    }
+
+    /**
+     * Sets up the engines from the given file or the preferences, such that the queries can be bound to them
+     */
+    private void setUpEngines() throws IOException {
+        String enginesJson = enginesFile != null
+                ? Files.readString(enginesFile.toPath(), StandardCharsets.UTF_8)
+                : Ecdar.preferences.get("engines", null);
+        if (enginesJson == null) {
+            throw new IllegalArgumentException("No engines are configured, use --engines or configure them in the user interface");
+        }
+
+        ArrayList<Engine> engines = new ArrayList<>();
+        JsonParser.parseString(enginesJson).getAsJsonArray()
+                .forEach(engine -> engines.add(new Engine(engine.getAsJsonObject())));
+        if (engines.isEmpty()) throw new IllegalArgumentException("The list of engines is empty");
+
+        BackendHelper.updateEngineInstances(engines);
+        BackendHelper.setDefaultEngine(engines.stream().filter(Engine::isDefault).findFirst().orElse(engines.get(0)));
+        BackendHelper.warmUpEngines();
+    }
+
+    /**
+     * Sends the queries to their engines with at most {@link #parallelism} queries running at a time
+     *
+     * @param queries the queries to run
+     * @return the results in the order of the queries
+     */
+    private List<Result> runQueries(final List<Query> queries) {
+        Semaphore permits = new Semaphore(parallelism);
+        List<Result> results = new ArrayList<>();
+        List<CompletableFuture<Void>> runningQueries = new ArrayList<>();
+
+        for (Query query : queries) {
+            Result result = new Result(query);
+            results.add(result);
+
+            if (query.getQuery().isEmpty() || !StringValidator.validateQuery(query.getQuery()) || query.getType() == null) {
+                result.state = QueryState.SYNTAX_ERROR;
+                result.message = "The query is not valid";
+                continue;
+            }
+
+            if (query.getEngine() == null) {
+                result.state = QueryState.ERROR;
+                result.message = "No engine is configured for the query";
+                continue;
+            }
+
+            permits.acquireUninterruptibly();
+            runningQueries.add(runQuery(result).whenComplete((ignored, t) -> {
+                permits.release();
+                System.out.println("[" + result.state + "] " + result.getQueryText() + " (" + result.timeMillis + " ms)");
+            }));
+        }
+
+        CompletableFuture.allOf(runningQueries.toArray(new CompletableFuture[0])).join();
+        return results;
+    }
+
+    private CompletableFuture<Void> runQuery(final Result result) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        final Query query = result.query;
+        final long start = System.nanoTime();
+
+        query.setPriority(QueryPriority.INTERACTIVE);
+        query.getEngine().enqueueQuery(query, response -> {
+            if (Query.isSatisfied(response)) {
+                result.finish(QueryState.SUCCESSFUL, "", start);
+            } else {
+                result.finish(QueryState.ERROR, "The query is not satisfied", start);
+            }
+            done.complete(null);
+        }, t -> {
+            result.finish(QueryState.UNKNOWN, t.getMessage() == null ? t.toString() : t.getMessage(), start);
+            done.complete(null);
+        });
+
+        return done.completeOnTimeout(null, timeoutSeconds, TimeUnit.SECONDS).whenComplete((ignored, t) -> {
+            if (result.finish(QueryState.UNKNOWN, "The query did not finish within " + timeoutSeconds + " seconds", start)) {
+                query.getEngine().cancelQuery(query);
+            }
+        });
+    }
+
+    private void writeJson(final List<Result> results, final long totalTimeMillis) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("project", projectFolder.getAbsolutePath());
+        json.addProperty("totalTimeMillis", totalTimeMillis);
+
+        JsonArray resultsArray = new JsonArray();
+        for (Result result : results) {
+            JsonObject resultJson = new JsonObject();
+            resultJson.addProperty("query", result.getQueryText());
+            resultJson.addProperty("engine", result.engine);
+            resultJson.addProperty("state", result.state.name());
+            resultJson.addProperty("timeMillis", result.timeMillis);
+            resultJson.addProperty("message", result.message);
+            resultsArray.add(resultJson);
+        }
+        json.add("results", resultsArray);
+
+        try (Writer writer = Files.newBufferedWriter(jsonOutput.toPath(), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(json, writer);
+        }
+    }
+
+    /**
+     * Writes the results as a JUnit test suite, where each query is a test case.
+     * Queries that are not satisfied are failures, and queries that could not be checked are errors.
+     */
+    private void writeJUnitXml(final List<Result> results, final long totalTimeMillis) throws IOException, XMLStreamException {
+        long failures = results.stream().filter(result -> result.state == QueryState.ERROR).count();
+        long errors = results.stream()
+                .filter(result -> result.state != QueryState.SUCCESSFUL && result.state != QueryState.ERROR).count();
+
+        try (OutputStream out = Files.newOutputStream(junitOutput.toPath())) {
+            XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeStartElement("testsuite");
+            xml.writeAttribute("name", projectFolder.getName());
+            xml.writeAttribute("tests", String.valueOf(results.size()));
+            xml.writeAttribute("failures", String.valueOf(failures));
+            xml.writeAttribute("errors", String.valueOf(errors));
+            xml.writeAttribute("time", toSeconds(totalTimeMillis));
+
+            for (Result result : results) {
+                xml.writeStartElement("testcase");
+                xml.writeAttribute("classname", result.engine);
+                xml.writeAttribute("name", result.getQueryText());
+                xml.writeAttribute("time", toSeconds(result.timeMillis));
+
+                if (result.state != QueryState.SUCCESSFUL) {
+                    xml.writeStartElement(result.state == QueryState.ERROR ? "failure" : "error");
+                    xml.writeAttribute("message", result.message);
+                    xml.writeAttribute("type", result.state.name());
+                    xml.writeEndElement();
+                }
+
+                xml.writeEndElement();
+            }
+
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+        }
+    }
+
+    private static String toSeconds(final long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+}
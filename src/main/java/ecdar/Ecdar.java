@@ -49,6 +49,7 @@ public class Ecdar extends Application {
     private static EcdarPresentation presentation;
     private static BooleanProperty isUICached = new SimpleBooleanProperty();
     public static BooleanProperty shouldRunBackgroundQueries = new SimpleBooleanProperty(true);
+    public static BooleanProperty shouldPersistQueryResults = new SimpleBooleanProperty(false);
     private static final BooleanProperty isSplit = new SimpleBooleanProperty(false);
     private Stage debugStage;
 
@@ -126,6 +127,12 @@ public class Ecdar extends Application {
     }
 
     public static void showToast(final String message) {
+        // Without a user interface, for instance when running queries from the command line, messages are printed
+        if (presentation == null) {
+            System.err.println(message);
+            return;
+        }
+
         Platform.runLater(() -> {
             presentation.showSnackbarMessage(message);
         });
@@ -162,6 +169,17 @@ public class Ecdar extends Application {
         return shouldRunBackgroundQueries;
     }
 
+    /**
+     * Toggles whether cached query results are stored in the project directory.
+     * Stored results are reused when the project is opened again.
+     *
+     * @return the property specifying whether to store query results
+     */
+    public static BooleanProperty toggleQueryResultPersistence() {
+        shouldPersistQueryResults.set(!shouldPersistQueryResults.get());
+        return shouldPersistQueryResults;
+    }
+
     public static BooleanProperty toggleQueryPane() {
         return presentation.toggleQueryPane();
     }
@@ -240,15 +258,8 @@ public class Ecdar extends Application {
             Ecdar.showToast("The application icon could not be loaded");
         }
 
-        BackendHelper.addEngineInstanceListener(() -> {
-            // When the engines change, clear the backendDriver
-            // to prevent dangling connections and queries
-            try {
-                BackendHelper.clearEngineConnections();
-            } catch (BackendException e) {
-                showToast("An exception was encountered during shutdown of engine connections");
-            }
-        });
+        // The connections of the replaced engines are closed when the engines change, so only the new engines are started
+        BackendHelper.addEngineInstanceListener(BackendHelper::warmUpEngines);
 
         // Whenever the Runtime is requested to exit, exit the Platform first
         Runtime.getRuntime().addShutdownHook(new Thread(Platform::exit));
@@ -275,19 +286,24 @@ public class Ecdar extends Application {
             final BackgroundThreadPresentation backgroundThreadPresentation = new BackgroundThreadPresentation();
             backgroundThreadPresentation.setMinWidth(100);
 
-            final HBox root = new HBox(undoRedoHistoryPresentation, backgroundThreadPresentation);
+            final EngineMetricsPresentation engineMetricsPresentation = new EngineMetricsPresentation();
+            engineMetricsPresentation.setMinWidth(100);
+
+            final HBox root = new HBox(undoRedoHistoryPresentation, backgroundThreadPresentation, engineMetricsPresentation);
             root.setStyle("-fx-background-color: brown;");
             HBox.setHgrow(undoRedoHistoryPresentation, Priority.ALWAYS);
             HBox.setHgrow(backgroundThreadPresentation, Priority.ALWAYS);
+            HBox.setHgrow(engineMetricsPresentation, Priority.ALWAYS);
 
 
             debugStage = new Stage();
             debugStage.setScene(new Scene(root));
+            debugStage.setOnHidden(event -> engineMetricsPresentation.getController().stop());
 
             debugStage.getScene().getStylesheets().add("ecdar/main.css");
             debugStage.getScene().getStylesheets().add("ecdar/colors.css");
 
-            debugStage.setWidth(screen.getVisualBounds().getWidth() * 0.2);
+            debugStage.setWidth(screen.getVisualBounds().getWidth() * 0.35);
             debugStage.setHeight(screen.getVisualBounds().getWidth() * 0.3);
 
             debugStage.show();
@@ -359,7 +375,58 @@ public class Ecdar extends Application {
         // new JFXPanel();
     }
 
+    /**
+     * Loads a project without starting the user interface, such that its queries can be run from the command line.
+     * The engines must be set up before the project is loaded, as each query is bound to an engine by name.
+     *
+     * @param directory the folder of the project, or a packed project file
+     * @throws IOException if a file of the project could not be read
+     */
+    public static void initializeHeadlessProject(final File directory) throws IOException {
+        project = new Project();
+        projectDirectory.set(directory.getAbsolutePath());
+
+        CodeAnalysis.disable();
+        if (directory.isFile()) {
+            project.deserializePacked(directory);
+        } else {
+            project.deserialize(directory);
+        }
+        serializationDone = true;
+    }
+
+    /**
+     * Imports a packed project, see {@link ecdar.abstractions.PackedProjectFile}.
+     * The project is unpacked to a new folder next to the packed file with the same name,
+     * which becomes the project directory, such that the project is saved in the folder layout.
+     *
+     * @param packedFile the packed project
+     * @throws IOException if the packed project could not be read
+     */
+    public static void initializePackedProject(final File packedFile) throws IOException {
+        final String name = packedFile.getName().replaceFirst("\\.[^.]*$", "");
+
+        // Never unpack into an existing project, as saving would replace its models
+        File directory = new File(packedFile.getParentFile(), name);
+        for (int counter = 1; directory.exists(); counter++) {
+            directory = new File(packedFile.getParentFile(), name + " (" + counter + ")");
+        }
+
+        projectDirectory.set(directory.getAbsolutePath());
+        initializeProject(packedFile);
+    }
+
     public static void initializeProjectFolder() throws IOException {
+        initializeProject(null);
+    }
+
+    /**
+     * Loads the project in the project directory, or from a packed file.
+     *
+     * @param packedFile the packed project to load, or null to load the project directory
+     * @throws IOException if the project could not be read
+     */
+    private static void initializeProject(final File packedFile) throws IOException {
         // Make sure that the project directory exists
         final File directory = new File(projectDirectory.get());
         FileUtils.forceMkdir(directory);
@@ -373,18 +440,37 @@ public class Ecdar extends Application {
         getProject().clean();
 
         // Deserialize the project
-        getProject().deserialize(directory);
+        if (packedFile != null) {
+            getProject().deserializePacked(packedFile);
+        } else {
+            getProject().deserialize(directory);
+        }
         CodeAnalysis.enable();
 
+        // Cached query results are only valid for the project they were stored with
+        if (shouldPersistQueryResults.get()) {
+            BackendHelper.loadQueryResultCache(directory);
+        } else {
+            BackendHelper.getQueryResultCache().clear();
+        }
+
+        // Start engine instances while the project is being displayed, such that the first queries are not delayed
+        BackendHelper.warmUpEngines();
+
+        // The locations of the new project have not been checked, even if a component has the same content as before
+        BackendHelper.getBackgroundQueryScheduler().checkAllComponents();
+
         // If we found a component set that as active
         serializationDone = true;
 
+        // The stubs of the project are checked in the background once they are used
+        getProject().getComponents().forEach(Ecdar::addGraphListeners);
+
         // Update reachability check timer when components change
         getProject().getComponents().addListener((ListChangeListener<Component>) c -> {
             while (c.next()) {
                 c.getAddedSubList().forEach(component -> {
-                    component.getLocations().addListener((ListChangeListener<? super Location>) loc -> EcdarController.runReachabilityAnalysis());
-                    component.getDisplayableEdges().addListener((ListChangeListener<? super DisplayableEdge>) de -> EcdarController.runReachabilityAnalysis());
+                    addGraphListeners(component);
                     component.declarationsTextProperty().addListener((observable, oldValue, newValue) -> EcdarController.runReachabilityAnalysis());
                     component.includeInPeriodicCheckProperty().addListener((observable, oldValue, newValue) -> EcdarController.runReachabilityAnalysis());
                 });
@@ -392,8 +478,34 @@ public class Ecdar extends Application {
         });
     }
 
+    /**
+     * Updates the reachability check timer when the locations or edges of a component change.
+     * Listening to the locations and edges of a stub would build them, so for a stub this waits until it is used,
+     * at which point its locations have not been checked yet.
+     *
+     * @param component the component to listen to
+     */
+    private static void addGraphListeners(final Component component) {
+        if (!component.isGraphLoaded()) {
+            component.graphLoadedProperty().addListener((observable, wasLoaded, isLoaded) -> {
+                addGraphListeners(component);
+                EcdarController.runReachabilityAnalysis();
+            });
+            return;
+        }
+
+        component.getLocations().addListener((ListChangeListener<? super Location>) loc -> EcdarController.runReachabilityAnalysis());
+        component.getDisplayableEdges().addListener((ListChangeListener<? super DisplayableEdge>) de -> EcdarController.runReachabilityAnalysis());
+    }
+
+    /**
+     * Gets the presentation of a component, creating it if the component has not been opened yet.
+     *
+     * @param component the component
+     * @return the presentation, or null if the component is not part of the project
+     */
     public static ComponentPresentation getComponentPresentationOfComponent(Component component) {
-        return getPresentation().getController().projectPane.getController().getComponentPresentations().stream().filter(componentPresentation -> componentPresentation.getController().getComponent().equals(component)).findFirst().orElse(null);
+        return getPresentation().getController().projectPane.getController().getComponentPresentation(component);
     }
 
     private static String getVersion() {
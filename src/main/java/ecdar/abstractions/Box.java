@@ -1,9 +1,12 @@
 package ecdar.abstractions;
 
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 
+import java.io.IOException;
+
 /**
  * A box with a two dimensional coordinate (top left corner) and width and height.
  */
@@ -79,6 +82,18 @@ public class Box {
         json.addProperty(HEIGHT, getHeight());
     }
 
+    /**
+     * Writes the properties of this to a JSON stream, in the same order as {@link #addProperties(JsonObject)}.
+     * @param writer the JSON stream, positioned inside an object
+     * @throws IOException if an IO error occurs
+     */
+    public void writeProperties(final JsonWriter writer) throws IOException {
+        writer.name(X).value(getX());
+        writer.name(Y).value(getY());
+        writer.name(WIDTH).value(getWidth());
+        writer.name(HEIGHT).value(getHeight());
+    }
+
     /**
      * Sets properties of this based on a JSON object.
      * @param json the JSON object
@@ -1,20 +1,29 @@
 package ecdar.abstractions;
 
+import EcdarProtoBuf.ComponentProtos;
 import ecdar.utility.UndoRedoStack;
 import ecdar.utility.colors.Color;
 import ecdar.utility.colors.EnabledColor;
 import ecdar.utility.helpers.Boxed;
 import ecdar.utility.helpers.MouseCircular;
+import ecdar.utility.serialize.JsonStreams;
+import com.google.common.hash.Hashing;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import javafx.beans.property.*;
 import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.util.Pair;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -28,6 +37,10 @@ public class Component extends HighLevelModel implements Boxed {
     private static final String LOCATIONS = "locations";
     private static final String EDGES = "edges";
     private static final String INCLUDE_IN_PERIODIC_CHECK = "includeInPeriodicCheck";
+    private static final String CONTENT_HASH = "contentHash";
+    private static final String INPUTS = "inputs";
+    private static final String OUTPUTS = "outputs";
+    private static final String EDGE_IDS = "edgeIds";
 
     // Verification properties
     private final ObservableList<Location> locations = FXCollections.observableArrayList();
@@ -44,13 +57,34 @@ public class Component extends HighLevelModel implements Boxed {
     private final Box box = new Box();
     private final BooleanProperty declarationOpen = new SimpleBooleanProperty(false);
 
+    // Serialized forms, only recomputed when a property that is part of them has changed
+    private final AtomicLong serializationRevision = new AtomicLong();
+    private volatile SerializedForm serializedForm;
+    private final ChangeListener<Object> serializationListener = (observable, oldValue, newValue) -> invalidateSerializedForm();
+    private final ListChangeListener<Object> serializationListListener = change -> {
+        invalidateSerializedForm();
+
+        while (change.next()) {
+            change.getRemoved().forEach(element -> updateSerializationListeners(element, false));
+            change.getAddedSubList().forEach(element -> updateSerializationListeners(element, true));
+        }
+    };
+
+    // The JSON of the locations and edges of a stub, which are only read and built when they are first used
+    private volatile Supplier<JsonObject> unloadedGraph;
+    private boolean isLoadingGraph = false;
+    private final ReadOnlyBooleanWrapper graphLoaded = new ReadOnlyBooleanWrapper(true);
+    private String stubContentHash;
+    private long stubRevision;
+    private Set<String> stubEdgeIds;
+
     public Location previousLocationForDraggedEdge;
 
     /**
      * Constructs an empty component
      */
     public Component() {
-
+        initializeSerializationListeners();
     }
 
     /**
@@ -73,12 +107,139 @@ public class Component extends HighLevelModel implements Boxed {
 
         addLocation(initialLocation);
         initializeIOListeners();
+        initializeSerializationListeners();
     }
 
     public Component(final JsonObject json) {
         deserialize(json);
         initializeIOListeners();
         updateIOList();
+        initializeSerializationListeners();
+    }
+
+    private Component(final JsonObject properties, final Supplier<JsonObject> graph, final String contentHash, final Set<String> edgeIds) {
+        deserializeProperties(properties);
+        unloadedGraph = graph;
+        graphLoaded.set(false);
+        stubContentHash = contentHash;
+        stubEdgeIds = edgeIds;
+        initializeIOListeners();
+        initializeSerializationListeners();
+        stubRevision = serializationRevision.get();
+    }
+
+    /**
+     * Creates a stub of a component from JSON.
+     * Only the name, declarations, signature, and other properties of the component itself are read,
+     * while its locations and edges are built when they are first used,
+     * e.g. when the component is opened or mutated.
+     * Until then, the content hash of the stub is the hash of the JSON, and it is serialized with the locations and edges of the JSON.
+     * @param json the serialized component
+     * @return the stub
+     */
+    public static Component createStub(final JsonObject json) {
+        final Set<String> edgeIds = new HashSet<>();
+        final List<Pair<String, EdgeStatus>> syncs = new ArrayList<>();
+        json.getAsJsonArray(EDGES).forEach(edge -> {
+            final JsonObject edgeObject = (JsonObject) edge;
+            if (edgeObject.has(Edge.ID)) edgeIds.add(edgeObject.getAsJsonPrimitive(Edge.ID).getAsString());
+            syncs.add(new Pair<>(edgeObject.getAsJsonPrimitive(Edge.SYNC).getAsString(),
+                    EdgeStatus.valueOf(edgeObject.getAsJsonPrimitive(Edge.STATUS).getAsString())));
+        });
+
+        final Component stub = new Component(json, () -> json, Hashing.sha256().hashString(json.toString(), StandardCharsets.UTF_8).toString(), edgeIds);
+        stub.setIOList(syncs);
+        return stub;
+    }
+
+    /**
+     * Creates a stub of a component from the JSON written by {@link #serializeStub()},
+     * such that the JSON of its locations and edges is not read until they are used.
+     * @param stub the serialized stub
+     * @param graph reads the serialized component, of which only the locations and edges are used
+     * @return the stub
+     */
+    static Component createStub(final JsonObject stub, final Supplier<JsonObject> graph) {
+        final Set<String> edgeIds = new HashSet<>();
+        stub.getAsJsonArray(EDGE_IDS).forEach(id -> edgeIds.add(id.getAsString()));
+
+        final Component component = new Component(stub, graph, stub.getAsJsonPrimitive(CONTENT_HASH).getAsString(), edgeIds);
+        stub.getAsJsonArray(INPUTS).forEach(input -> component.inputStrings.add(input.getAsString()));
+        stub.getAsJsonArray(OUTPUTS).forEach(output -> component.outputStrings.add(output.getAsString()));
+        return component;
+    }
+
+    /**
+     * Serializes what a stub is created from with {@link #createStub(JsonObject, Supplier)}.
+     * This is the properties of the component itself, its signature, the ids of its edges, and its content hash.
+     * @return the serialized stub
+     */
+    JsonObject serializeStub() {
+        final JsonObject result = super.serialize();
+        result.addProperty(DECLARATIONS, getDeclarationsText());
+        result.addProperty(DESCRIPTION, getDescription());
+        box.addProperties(result);
+        result.addProperty(COLOR, EnabledColor.getIdentifier(getColor().color));
+        result.addProperty(INCLUDE_IN_PERIODIC_CHECK, isIncludeInPeriodicCheck());
+        result.addProperty(CONTENT_HASH, getContentHash());
+
+        final JsonArray inputs = new JsonArray();
+        getInputStrings().forEach(inputs::add);
+        result.add(INPUTS, inputs);
+
+        final JsonArray outputs = new JsonArray();
+        getOutputStrings().forEach(outputs::add);
+        result.add(OUTPUTS, outputs);
+
+        final JsonArray edgeIds = new JsonArray();
+        getEdgeIds().forEach(edgeIds::add);
+        result.add(EDGE_IDS, edgeIds);
+
+        return result;
+    }
+
+    /**
+     * Builds the locations and edges of a stub, if they have not been built already.
+     * This is synchronized, such that the graph is built once, even if it is first used by multiple threads.
+     */
+    private void loadGraph() {
+        if (unloadedGraph == null) return;
+
+        synchronized (this) {
+            final Supplier<JsonObject> graph = unloadedGraph;
+
+            // The graph is used while it is being built, e.g. by edges finding their locations
+            if (graph == null || isLoadingGraph) return;
+
+            isLoadingGraph = true;
+            try {
+                deserializeGraph(graph.get());
+            } finally {
+                isLoadingGraph = false;
+            }
+
+            unloadedGraph = null;
+        }
+
+        graphLoaded.set(true);
+    }
+
+    /**
+     * Whether the locations and edges of this component have been built.
+     * This is only false for stubs that have not been used yet, see {@link #createStub(JsonObject)}.
+     * @return true if the graph is built
+     */
+    public boolean isGraphLoaded() {
+        return unloadedGraph == null;
+    }
+
+    /**
+     * Whether the locations and edges of this component have been built.
+     * The property only changes once, when a stub is first used, and is updated on the thread using it.
+     * @return the property
+     */
+    public ReadOnlyBooleanProperty graphLoadedProperty() {
+        return graphLoaded.getReadOnlyProperty();
     }
 
     /**
@@ -127,7 +288,7 @@ public class Component extends HighLevelModel implements Boxed {
         });
 
         // Add listener to edges initially
-        getEdges().forEach(edge -> getEdgeOrSubEdges(edge).forEach(subEdge -> addSyncListener(listener, subEdge)));
+        getListOfEdgesFromDisplayableEdges(displayableEdges).forEach(edge -> getEdgeOrSubEdges(edge).forEach(subEdge -> addSyncListener(listener, subEdge)));
     }
 
     /**
@@ -140,6 +301,67 @@ public class Component extends HighLevelModel implements Boxed {
         edge.ioStatus.addListener(listener);
     }
 
+    /**
+     * Initialises the listeners that invalidate the cached serialized forms of this component.
+     * Every property that is part of the serialized form is listened to,
+     * including the properties of the locations, edges, and nails of the component.
+     */
+    private void initializeSerializationListeners() {
+        updateSerializationListeners(List.of(nameProperty(), colorProperty(), description, declarationsText, includeInPeriodicCheck,
+                box.getXProperty(), box.getYProperty(), box.getWidthProperty(), box.getHeightProperty()), true);
+
+        locations.addListener(serializationListListener);
+        locations.forEach(location -> updateSerializationListeners(location, true));
+        displayableEdges.addListener(serializationListListener);
+        displayableEdges.forEach(edge -> updateSerializationListeners(edge, true));
+    }
+
+    /**
+     * Adds or removes the listeners that invalidate the cached serialized forms to or from
+     * a location, an edge, or a nail of this component.
+     * @param element the location, edge, or nail
+     * @param listen true to add the listeners, false to remove them
+     */
+    private void updateSerializationListeners(final Object element, final boolean listen) {
+        if (element instanceof Location) {
+            final Location location = (Location) element;
+            updateSerializationListeners(List.of(location.idProperty(), location.nicknameProperty(), location.invariantProperty(),
+                    location.typeProperty(), location.urgencyProperty(), location.xProperty(), location.yProperty(),
+                    location.colorProperty(), location.nicknameXProperty(), location.nicknameYProperty(),
+                    location.invariantXProperty(), location.invariantYProperty()), listen);
+        } else if (element instanceof GroupedEdge) {
+            // Only the edges of a group are serialized
+            final ObservableList<Edge> edges = ((GroupedEdge) element).getEdges();
+            if (listen) edges.addListener(serializationListListener);
+            else edges.removeListener(serializationListListener);
+            edges.forEach(edge -> updateSerializationListeners(edge, listen));
+        } else if (element instanceof Edge) {
+            final Edge edge = (Edge) element;
+            updateSerializationListeners(List.of(edge.idProperty(), edge.groupProperty(), edge.sourceLocationProperty(),
+                    edge.targetLocationProperty(), edge.ioStatus, edge.selectProperty(), edge.guardProperty(),
+                    edge.updateProperty(), edge.syncProperty(), edge.getIsLockedProperty()), listen);
+
+            if (listen) edge.getNails().addListener(serializationListListener);
+            else edge.getNails().removeListener(serializationListListener);
+            edge.getNails().forEach(nail -> updateSerializationListeners(nail, listen));
+        } else if (element instanceof Nail) {
+            final Nail nail = (Nail) element;
+            updateSerializationListeners(List.of(nail.xProperty(), nail.yProperty(), nail.propertyTypeProperty(),
+                    nail.propertyXProperty(), nail.propertyYProperty()), listen);
+        }
+    }
+
+    private void updateSerializationListeners(final List<ObservableValue<?>> properties, final boolean listen) {
+        for (final ObservableValue<?> property : properties) {
+            if (listen) property.addListener(serializationListener);
+            else property.removeListener(serializationListener);
+        }
+    }
+
+    private void invalidateSerializedForm() {
+        serializationRevision.incrementAndGet();
+    }
+
     /**
      * Get all locations in this, but the initial location (if one exists).
      * O(n), n is # of locations in component.
@@ -158,6 +380,7 @@ public class Component extends HighLevelModel implements Boxed {
     }
 
     public ObservableList<Location> getLocations() {
+        loadGraph();
         return locations;
     }
 
@@ -175,11 +398,11 @@ public class Component extends HighLevelModel implements Boxed {
     }
 
     public boolean addLocation(final Location location) {
-        return locations.add(location);
+        return getLocations().add(location);
     }
 
     public boolean removeLocation(final Location location) {
-        return locations.remove(location);
+        return getLocations().remove(location);
     }
 
     public String getUniqueLocationId() {
@@ -196,6 +419,7 @@ public class Component extends HighLevelModel implements Boxed {
      * @return All visual edges of the component
      */
     public ObservableList<DisplayableEdge> getDisplayableEdges() {
+        loadGraph();
         return displayableEdges;
     }
 
@@ -204,16 +428,29 @@ public class Component extends HighLevelModel implements Boxed {
      * @return All functional edges of the component
      */
     public List<Edge> getEdges() {
-        return getListOfEdgesFromDisplayableEdges(displayableEdges);
+        return getListOfEdgesFromDisplayableEdges(getDisplayableEdges());
+    }
+
+    /**
+     * Gets the ids of all edges of the component (including the sub-edges of GroupEdges).
+     * Unlike {@link #getEdges()}, this does not build the edges of a stub.
+     * @return the ids of the edges
+     */
+    Set<String> getEdgeIds() {
+        if (!isGraphLoaded()) return new HashSet<>(stubEdgeIds);
+
+        final Set<String> ids = new HashSet<>();
+        getEdges().forEach(edge -> ids.add(edge.getId()));
+        return ids;
     }
 
     public boolean addEdge(final DisplayableEdge edge) {
-        if (displayableEdges.contains(edge)) return false;
+        if (getDisplayableEdges().contains(edge)) return false;
         return displayableEdges.add(edge);
     }
 
     public boolean removeEdge(final DisplayableEdge edge) {
-        return displayableEdges.remove(edge);
+        return getDisplayableEdges().remove(edge);
     }
 
     /**
@@ -224,7 +461,7 @@ public class Component extends HighLevelModel implements Boxed {
     public List<DisplayableEdge> getRelatedEdges(final Location location) {
         final ArrayList<DisplayableEdge> relatedEdges = new ArrayList<>();
 
-        displayableEdges.forEach(edge -> {
+        getDisplayableEdges().forEach(edge -> {
             if(location.equals(edge.getSourceLocation()) || location.equals(edge.getTargetLocation())) {
                 relatedEdges.add(edge);
             }
@@ -305,7 +542,7 @@ public class Component extends HighLevelModel implements Boxed {
     }
 
     public DisplayableEdge getUnfinishedEdge() {
-        for (final DisplayableEdge edge : displayableEdges) {
+        for (final DisplayableEdge edge : getDisplayableEdges()) {
             if (edge.getTargetLocation() == null
                     || edge.getSourceCircular() instanceof MouseCircular
                     || edge.getTargetCircular() instanceof MouseCircular)
@@ -464,23 +701,35 @@ public class Component extends HighLevelModel implements Boxed {
     /**
      * Method used for updating the inputstrings and outputstrings list
      * Sorts the list alphabetically, ignoring case
+     * The signature of a stub is the one it was created with, as its edges cannot have changed before they are built.
      */
     public void updateIOList() {
+        if (!isGraphLoaded()) return;
+
+        // The sync and status of each edge
+        final List<Pair<String, EdgeStatus>> syncs = new ArrayList<>();
+        getListOfEdgesFromDisplayableEdges(displayableEdges).forEach(edge -> syncs.add(new Pair<>(edge.getSync(), edge.getStatus())));
+        setIOList(syncs);
+    }
+
+    /**
+     * Sets the inputstrings and outputstrings lists from the sync and status of each edge
+     * @param syncs the sync and status of each edge
+     */
+    private void setIOList(final List<Pair<String, EdgeStatus>> syncs) {
         final List<String> localInputStrings = new ArrayList<>();
         final List<String> localOutputStrings = new ArrayList<>();
 
-        List<Edge> edgeList = getListOfEdgesFromDisplayableEdges(displayableEdges);
-
-        for (final Edge edge : edgeList) {
+        for (final Pair<String, EdgeStatus> sync : syncs) {
             // Extract channel id based on UPPAAL id definition
-            final String channel = edge.getSync().replaceAll("^([a-zA-Z_][a-zA-Z0-9_]*).*$", "$1");
+            final String channel = sync.getKey().replaceAll("^([a-zA-Z_][a-zA-Z0-9_]*).*$", "$1");
 
-            if(edge.getStatus() == EdgeStatus.INPUT){
-                if(!edge.getSync().equals("*") && !localInputStrings.contains(channel)){
+            if(sync.getValue() == EdgeStatus.INPUT){
+                if(!sync.getKey().equals("*") && !localInputStrings.contains(channel)){
                     localInputStrings.add(channel);
                 }
-            } else if (edge.getStatus() == EdgeStatus.OUTPUT) {
-                if(!edge.getSync().equals("*") && !localOutputStrings.contains(channel)){
+            } else if (sync.getValue() == EdgeStatus.OUTPUT) {
+                if(!sync.getKey().equals("*") && !localOutputStrings.contains(channel)){
                     localOutputStrings.add(channel);
                 }
             }
@@ -499,19 +748,74 @@ public class Component extends HighLevelModel implements Boxed {
         return box;
     }
 
+    /**
+     * Gets a hash of the serialized content of this component.
+     * Two components with the same hash have the same serialized form.
+     * @return the hash as a hex string
+     */
+    public String getContentHash() {
+        // A stub that has not changed has the hash of the JSON it was created from
+        final String hash = stubContentHash;
+        if (hash != null && serializationRevision.get() == stubRevision) return hash;
+
+        return getSerializedForm().contentHash;
+    }
+
+    /**
+     * Gets the serialized form of this component as compact JSON.
+     * The JSON is cached until the component changes, so unlike {@link #serialize()} repeated calls are cheap.
+     * @return the serialized component
+     */
+    public String getSerializedJson() {
+        return getSerializedForm().json;
+    }
+
+    /**
+     * Gets the serialized form of this component as it is sent to the engines.
+     * The message is cached until the component changes.
+     * @return the serialized component
+     */
+    public ComponentProtos.Component getSerializedProto() {
+        return getSerializedForm().getProto();
+    }
+
+    /**
+     * Gets the serialized forms of the current state of this component, serializing it only if it has changed.
+     * If the component changes while it is being serialized, the result is not kept,
+     * as it might contain a mix of the old and the new state.
+     * @return the serialized forms
+     */
+    private SerializedForm getSerializedForm() {
+        final long revision = serializationRevision.get();
+        SerializedForm form = serializedForm;
+        if (form != null && form.revision == revision) return form;
+
+        form = new SerializedForm(revision, serialize());
+        serializedForm = form;
+        return form;
+    }
+
     @Override
     public JsonObject serialize() {
         final JsonObject result = super.serialize();
         result.addProperty(DECLARATIONS, getDeclarationsText());
 
-        final JsonArray locations = new JsonArray();
-        getLocations().forEach(location -> locations.add(location.serialize()));
-        result.add(LOCATIONS, locations);
+        // The graph of a stub has not changed since it was read, so it is not built to be serialized
+        final Supplier<JsonObject> unloaded = unloadedGraph;
+        if (unloaded != null) {
+            final JsonObject graph = unloaded.get();
+            result.add(LOCATIONS, graph.getAsJsonArray(LOCATIONS).deepCopy());
+            result.add(EDGES, graph.getAsJsonArray(EDGES).deepCopy());
+        } else {
+            final JsonArray locations = new JsonArray();
+            getLocations().forEach(location -> locations.add(location.serialize()));
+            result.add(LOCATIONS, locations);
 
-        final JsonArray edges = new JsonArray();
-        getListOfEdgesFromDisplayableEdges(this.displayableEdges).forEach(edge -> edges.add(edge.serialize()));
+            final JsonArray edges = new JsonArray();
+            getEdges().forEach(edge -> edges.add(edge.serialize()));
 
-        result.add(EDGES, edges);
+            result.add(EDGES, edges);
+        }
         result.addProperty(DESCRIPTION, getDescription());
         box.addProperties(result);
         result.addProperty(COLOR, EnabledColor.getIdentifier(getColor().color));
@@ -520,17 +824,90 @@ public class Component extends HighLevelModel implements Boxed {
         return result;
     }
 
+    /**
+     * Writes the same JSON as {@link #serialize()}, but one location and edge at a time,
+     * such that the tree of the whole component is never built.
+     * @param writer the stream to write to
+     * @throws IOException if an IO error occurs
+     */
+    @Override
+    public void serialize(final JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name(NAME).value(getName());
+        writer.name(DECLARATIONS).value(getDeclarationsText());
+
+        final Supplier<JsonObject> unloaded = unloadedGraph;
+        if (unloaded != null) {
+            final JsonObject graph = unloaded.get();
+            writer.name(LOCATIONS);
+            JsonStreams.write(graph.getAsJsonArray(LOCATIONS), writer);
+            writer.name(EDGES);
+            JsonStreams.write(graph.getAsJsonArray(EDGES), writer);
+        } else {
+            writer.name(LOCATIONS).beginArray();
+            for (final Location location : getLocations()) {
+                JsonStreams.write(location.serialize(), writer);
+            }
+            writer.endArray();
+
+            writer.name(EDGES).beginArray();
+            for (final Edge edge : getEdges()) {
+                JsonStreams.write(edge.serialize(), writer);
+            }
+            writer.endArray();
+        }
+
+        writer.name(DESCRIPTION).value(getDescription());
+        box.writeProperties(writer);
+        writer.name(COLOR).value(EnabledColor.getIdentifier(getColor().color));
+        writer.name(INCLUDE_IN_PERIODIC_CHECK).value(isIncludeInPeriodicCheck());
+        writer.endObject();
+    }
+
     @Override
     public void deserialize(final JsonObject json) {
+        deserializeProperties(json);
+        deserializeGraph(json);
+    }
+
+    /**
+     * Deserializes the properties of the component itself, i.e. everything but its locations and edges.
+     * @param json the serialized component
+     */
+    private void deserializeProperties(final JsonObject json) {
         super.deserialize(json);
 
         setDeclarationsText(json.getAsJsonPrimitive(DECLARATIONS).getAsString());
+        setDescription(json.getAsJsonPrimitive(DESCRIPTION).getAsString());
+        box.setProperties(json);
+
+        final EnabledColor enabledColor = (json.has(COLOR) ? EnabledColor.fromIdentifier(json.getAsJsonPrimitive(COLOR).getAsString()) : EnabledColor.getDefault());
+        setColor(enabledColor);
 
+        if(json.has(INCLUDE_IN_PERIODIC_CHECK)) {
+            setIncludeInPeriodicCheck(json.getAsJsonPrimitive(INCLUDE_IN_PERIODIC_CHECK).getAsBoolean());
+        } else {
+            setIncludeInPeriodicCheck(false);
+        }
+    }
+
+    /**
+     * Deserializes the locations and edges of the component.
+     * They are collected before they are added, such that the listeners of the lists are only notified once.
+     * @param json the serialized component
+     */
+    private void deserializeGraph(final JsonObject json) {
+        final List<Location> newLocations = new ArrayList<>();
         json.getAsJsonArray(LOCATIONS).forEach(jsonElement -> {
             final Location newLocation = new Location((JsonObject) jsonElement);
-            locations.add(newLocation);
+            newLocation.setColor(getColor());
+            newLocations.add(newLocation);
         });
 
+        // The edges find their source and target among the locations
+        locations.addAll(newLocations);
+
+        final List<DisplayableEdge> newEdges = new ArrayList<>();
         json.getAsJsonArray(EDGES).forEach(jsonElement -> {
             JsonObject edgeObject = (JsonObject) jsonElement;
             final Edge newEdge = new Edge((JsonObject) jsonElement, this);
@@ -542,7 +919,7 @@ public class Component extends HighLevelModel implements Boxed {
 
             if (!edgeGroup.isEmpty()) {
                 GroupedEdge groupedEdge = null;
-                for (DisplayableEdge edge : displayableEdges) {
+                for (DisplayableEdge edge : newEdges) {
                     if (edge instanceof GroupedEdge && edge.getId().equals(edgeGroup)) {
                         groupedEdge = ((GroupedEdge) edge);
                         break;
@@ -553,39 +930,48 @@ public class Component extends HighLevelModel implements Boxed {
                     GroupedEdge newGroupedEdge = new GroupedEdge(newEdge);
                     newGroupedEdge.setId(edgeGroup);
 
-                    displayableEdges.add(newGroupedEdge);
+                    newEdges.add(newGroupedEdge);
                 } else {
                     boolean hasSameGuardAndUpdate = groupedEdge.addEdgeToGroup(newEdge);
 
                     if (!hasSameGuardAndUpdate) {
                         // The edge has the same group id as another edge, but has different guard and/or update
                         newEdge.setGroup("");
-                        displayableEdges.add(newEdge);
+                        newEdges.add(newEdge);
                     }
                 }
             } else {
-                displayableEdges.add(newEdge);
+                newEdges.add(newEdge);
             }
         });
 
-        setDescription(json.getAsJsonPrimitive(DESCRIPTION).getAsString());
-        box.setProperties(json);
+        displayableEdges.addAll(newEdges);
 
         if (box.getWidth() == 0 && box.getHeight() == 0) {
             box.setWidth(locations.stream().max(Comparator.comparingDouble(Location::getX)).get().getX() + 10 * 10);
             box.setHeight(locations.stream().max(Comparator.comparingDouble(Location::getY)).get().getY() + 10 * 10);
         }
+    }
 
-        final EnabledColor enabledColor = (json.has(COLOR) ? EnabledColor.fromIdentifier(json.getAsJsonPrimitive(COLOR).getAsString()) : EnabledColor.getDefault());
-        setColor(enabledColor);
-        for(Location loc : locations) {
-            loc.setColor(enabledColor);
+    /**
+     * The serialized forms of a component at a given revision.
+     * The proto message is only created when it is needed.
+     */
+    private static class SerializedForm {
+        private final long revision;
+        private final String json;
+        private final String contentHash;
+        private ComponentProtos.Component proto;
+
+        SerializedForm(final long revision, final JsonObject tree) {
+            this.revision = revision;
+            this.json = tree.toString();
+            this.contentHash = Hashing.sha256().hashString(json, StandardCharsets.UTF_8).toString();
         }
 
-        if(json.has(INCLUDE_IN_PERIODIC_CHECK)) {
-            setIncludeInPeriodicCheck(json.getAsJsonPrimitive(INCLUDE_IN_PERIODIC_CHECK).getAsBoolean());
-        } else {
-            setIncludeInPeriodicCheck(false);
+        synchronized ComponentProtos.Component getProto() {
+            if (proto == null) proto = ComponentProtos.Component.newBuilder().setJson(json).build();
+            return proto;
         }
     }
 }
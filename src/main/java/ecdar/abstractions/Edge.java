@@ -13,16 +13,16 @@ import java.util.List;
 
 public class Edge extends DisplayableEdge implements Serializable {
 
-    private static final String ID = "id";
+    static final String ID = "id";
     private static final String GROUP = "group";
     private static final String SOURCE_LOCATION = "sourceLocation";
     private static final String TARGET_LOCATION = "targetLocation";
     private static final String SELECT = "select";
     private static final String GUARD = "guard";
     private static final String UPDATE = "update";
-    private static final String SYNC = "sync";
+    static final String SYNC = "sync";
     private static final String NAILS = "nails";
-    private static final String STATUS = "status";
+    static final String STATUS = "status";
     private static final String IS_LOCKED = "isLocked";
     public static final String EDGE = "E";
     public static final String EDGE_GROUP = "EG";
@@ -76,6 +76,10 @@ public class Edge extends DisplayableEdge implements Serializable {
         group.set(string);
     }
 
+    public StringProperty groupProperty() {
+        return group;
+    }
+
     /**
      * Creates a clone of an edge.
      * Clones objects used for verification.
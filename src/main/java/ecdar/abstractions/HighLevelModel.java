@@ -11,7 +11,7 @@ import javafx.beans.property.*;
  * This could be a component, a global declarations object, or a system.
  */
 public abstract class HighLevelModel implements Serializable, DropDownMenu.HasColor {
-    private static final String NAME = "name";
+    static final String NAME = "name";
 
     static final String DECLARATIONS = "declarations";
     public static final String DESCRIPTION = "description";
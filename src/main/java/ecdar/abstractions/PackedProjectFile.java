@@ -0,0 +1,252 @@
+package ecdar.abstractions;
+
+import ecdar.utility.serialize.JsonStreams;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * A project packed into a single file, used to import and export projects, which are otherwise stored as a folder with a JSON file per model.
+ * The file starts with an index of the models, followed by the compressed JSON of each model:
+ * <pre>
+ *     "ECDARPAK", version (int), number of entries (int),
+ *     per entry: kind (byte), name (short length and UTF-8 bytes), offset (long), compressed length (int), length (int),
+ *     per entry: the deflated UTF-8 JSON of the model
+ * </pre>
+ * The file is read into memory when it is opened, as a mapping would keep the file locked on some systems,
+ * such that it could not be replaced by exporting to it again. Each model is decoded separately, see {@link #read(Entry)}.
+ * A component is packed as a small stub followed by the whole component,
+ * such that the component is only decoded once its locations and edges are used.
+ */
+public class PackedProjectFile {
+    public static final String FILENAME_EXTENSION = ".ecdarpack";
+    private static final byte[] MAGIC = "ECDARPAK".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final String TEMP_FILENAME_EXTENSION = ".tmp";
+    private static final int INDEX_ENTRY_LENGTH = Byte.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES * 2; // Excluding the name
+
+    /**
+     * The kinds of models in a packed project.
+     * The ordinal is stored in the file, so new kinds must be added at the end.
+     */
+    public enum Kind {
+        GLOBAL_DECLARATIONS, QUERIES, COMPONENT, SYSTEM, TEST_PLAN, COMPONENT_STUB
+    }
+
+    /**
+     * A model in the index of a packed project.
+     */
+    public static class Entry {
+        private final Kind kind;
+        private final String name;
+        private final long offset;
+        private final int compressedLength;
+        private final int length;
+
+        Entry(final Kind kind, final String name, final long offset, final int compressedLength, final int length) {
+            this.kind = kind;
+            this.name = name;
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.length = length;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * A model to pack, which is written as JSON when the project is packed.
+     */
+    public static class Model {
+        private final Kind kind;
+        private final String name;
+        private final JsonStreams.Content content;
+
+        public Model(final Kind kind, final String name, final JsonStreams.Content content) {
+            this.kind = kind;
+            this.name = name;
+            this.content = content;
+        }
+    }
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final List<Entry> entries;
+
+    private PackedProjectFile(final File file, final ByteBuffer buffer, final List<Entry> entries) {
+        this.file = file;
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    /**
+     * Opens a packed project and reads its index.
+     * The models are not decoded until they are read with {@link #read(Entry)}.
+     *
+     * @param file the packed project
+     * @return the opened packed project
+     * @throws IOException if the file could not be read or is not a packed project
+     */
+    public static PackedProjectFile open(final File file) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+
+        try {
+            final ByteBuffer index = buffer.duplicate();
+            final byte[] magic = new byte[MAGIC.length];
+            index.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException(file.getName() + " is not a packed project");
+
+            final int version = index.getInt();
+            if (version != VERSION) throw new IOException(file.getName() + " is packed with an unsupported version (" + version + ")");
+
+            final int numberOfEntries = index.getInt();
+            final List<Entry> entries = new ArrayList<>();
+            for (int i = 0; i < numberOfEntries; i++) {
+                final int kind = index.get();
+                if (kind < 0 || kind >= Kind.values().length) throw new IOException(file.getName() + " contains a model of an unknown kind");
+
+                final byte[] name = new byte[index.getShort() & 0xFFFF];
+                index.get(name);
+
+                final Entry entry = new Entry(Kind.values()[kind], new String(name, StandardCharsets.UTF_8), index.getLong(), index.getInt(), index.getInt());
+                if (entry.offset < 0 || entry.compressedLength < 0 || entry.length < 0 || entry.offset + entry.compressedLength > buffer.capacity()) {
+                    throw new IOException(file.getName() + " is corrupt, the model " + entry.name + " is out of bounds");
+                }
+                entries.add(entry);
+            }
+
+            return new PackedProjectFile(file, buffer, Collections.unmodifiableList(entries));
+        } catch (final BufferUnderflowException e) {
+            throw new IOException(file.getName() + " is corrupt, its index is incomplete", e);
+        }
+    }
+
+    /**
+     * Gets the index of the packed project.
+     *
+     * @return the models in the order they were packed
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Decodes the JSON of a model.
+     * This is thread safe, as a component is decoded by the thread that first uses it.
+     *
+     * @param entry the entry of the model in the index
+     * @return the JSON of the model
+     * @throws IOException if the model is corrupt
+     */
+    public JsonElement read(final Entry entry) throws IOException {
+        final ByteBuffer blob = buffer.duplicate();
+        blob.position((int) entry.offset).limit((int) entry.offset + entry.compressedLength);
+
+        final byte[] json = new byte[entry.length];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blob);
+
+            int inflated = 0;
+            while (inflated < json.length && !inflater.finished() && !inflater.needsInput()) {
+                inflated += inflater.inflate(json, inflated, json.length - inflated);
+            }
+
+            if (inflated != json.length) throw new IOException(file.getName() + " is corrupt, the model " + entry.name + " is incomplete");
+        } catch (final DataFormatException e) {
+            throw new IOException(file.getName() + " is corrupt, the model " + entry.name + " could not be decompressed", e);
+        } finally {
+            inflater.end();
+        }
+
+        try {
+            return JsonParser.parseReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+        } catch (final JsonParseException e) {
+            throw new IOException(file.getName() + " is corrupt, the model " + entry.name + " is not valid JSON", e);
+        }
+    }
+
+    /**
+     * Packs models into a single file.
+     * The file is written to a temporary file first, such that an interrupted write leaves the old file intact.
+     *
+     * @param file   the file to write
+     * @param models the models to pack, in the order they should be read
+     * @throws IOException if the file could not be written
+     */
+    public static void write(final File file, final List<Model> models) throws IOException {
+        // The offsets in the index depend on the sizes of the compressed models, so these are compressed first
+        final List<byte[]> blobs = new ArrayList<>();
+        final List<Integer> lengths = new ArrayList<>();
+        for (final Model model : models) {
+            final ByteArrayOutputStream json = new ByteArrayOutputStream();
+            final JsonWriter writer = new JsonWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8));
+            model.content.write(writer);
+            writer.close();
+            lengths.add(json.size());
+
+            final ByteArrayOutputStream blob = new ByteArrayOutputStream();
+            try (final DeflaterOutputStream deflater = new DeflaterOutputStream(blob, new Deflater(Deflater.BEST_SPEED))) {
+                json.writeTo(deflater);
+            }
+            blobs.add(blob.toByteArray());
+        }
+
+        // The blobs start right after the header and the index
+        long offset = MAGIC.length + Integer.BYTES * 2;
+        for (final Model model : models) {
+            final int nameLength = model.name.getBytes(StandardCharsets.UTF_8).length;
+            if (nameLength > 0xFFFF) throw new IOException("The name of " + model.name + " is too long to be packed");
+
+            offset += INDEX_ENTRY_LENGTH + nameLength;
+        }
+
+        final File tempFile = new File(file.getParentFile(), file.getName() + TEMP_FILENAME_EXTENSION);
+        try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            output.write(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(models.size());
+
+            for (int i = 0; i < models.size(); i++) {
+                final Model model = models.get(i);
+                final byte[] name = model.name.getBytes(StandardCharsets.UTF_8);
+
+                output.writeByte(model.kind.ordinal());
+                output.writeShort(name.length);
+                output.write(name);
+                output.writeLong(offset);
+                output.writeInt(blobs.get(i).length);
+                output.writeInt(lengths.get(i));
+
+                offset += blobs.get(i).length;
+            }
+
+            for (final byte[] blob : blobs) {
+                output.write(blob);
+            }
+        }
+
+        JsonStreams.replaceAtomically(tempFile, file);
+    }
+}
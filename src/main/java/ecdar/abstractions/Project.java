@@ -2,20 +2,23 @@ package ecdar.abstractions;
 
 import ecdar.Ecdar;
 import ecdar.mutation.models.MutationTestPlan;
-import com.google.common.io.Files;
+import ecdar.utility.serialize.JsonStreams;
+import com.google.common.hash.Hashing;
 import com.google.gson.*;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.util.Pair;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
-import java.nio.charset.Charset;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * A project of models.
@@ -38,6 +41,9 @@ public class Project {
     private final ObservableList<MutationTestPlan> testPlans;
     private final ObjectProperty<Declarations> globalDeclarations;
 
+    // The revisions of the files of this project as they were last read or written, such that unchanged files are not written again
+    private final Map<String, String> savedFileRevisions = new ConcurrentHashMap<>();
+
     public Project() {
         queries = FXCollections.observableArrayList();
         components = FXCollections.observableArrayList();
@@ -86,8 +92,9 @@ public class Project {
     Set<String> getEdgeIds(){
         final Set<String> ids = new HashSet<>();
 
+        // The edges of stubs are not built for this
         for (final Component component : getComponents()) {
-            component.getEdges().forEach(edge -> ids.add(edge.getId().substring(Edge.ID_LETTER_LENGTH)));
+            component.getEdgeIds().forEach(id -> ids.add(id.substring(Edge.ID_LETTER_LENGTH)));
         }
 
         return ids;
@@ -108,25 +115,19 @@ public class Project {
     }
 
     /**
-     * Gets a new GSON object.
-     * @return the GSON object
-     */
-    private static Gson getNewGson() {
-        return new GsonBuilder().setPrettyPrinting().create();
-    }
-
-    /**
-     * Gets a new file writer for saving a file.
-     * @param filename name of file without extension.
-     * @return the file writer
-     * @throws IOException if an IO error occurs
+     * Gets a hash that identifies the serialized content of a model.
+     * For components, this is the same as {@link Component#getContentHash()}.
+     * @param json the serialized model
+     * @return the hash as a hex string
      */
-    private static FileWriter getSaveFileWriter(final String filename) throws IOException {
-        return new FileWriter(Ecdar.projectDirectory.getValue() + File.separator + filename + ".json");
+    private static String getRevision(final JsonElement json) {
+        return Hashing.sha256().hashString(json.toString(), StandardCharsets.UTF_8).toString();
     }
 
-    private static FileWriter getSaveFileWriter(final String filename, final String folderName) throws IOException {
-        return new FileWriter(Ecdar.projectDirectory.getValue() + File.separator + folderName + File.separator + filename + ".json");
+    private JsonArray serializeQueries() {
+        final JsonArray queries = new JsonArray();
+        getQueries().forEach(query -> queries.add(query.serialize()));
+        return queries;
     }
 
     /**
@@ -158,61 +159,176 @@ public class Project {
         systems.clear();
 
         testPlans.clear();
+
+        savedFileRevisions.clear();
     }
 
     /**
      * Serializes and stores this as JSON files at a given directory.
+     * Only files whose content has changed since they were last read or written are written,
+     * and the files of models that no longer exist are deleted.
      * @param directory object containing path to the desired directory to store at
      * @throws IOException if an IO error happens
      */
     public void serialize(final File directory) throws IOException {
-        // Clear the project folder
-        FileUtils.forceMkdir(directory);
-        FileUtils.cleanDirectory(directory);
-        FileUtils.forceMkdir(new File(Ecdar.projectDirectory.getValue() + File.separator + FOLDER_NAME_COMPONENTS));
-        FileUtils.forceMkdir(new File(Ecdar.projectDirectory.getValue() + File.separator + FOLDER_NAME_SYSTEMS));
-        FileUtils.forceMkdir(new File(Ecdar.projectDirectory.getValue() + File.separator + FOLDER_NAME_TESTS));
-
-        {
-            // Save global declarations
-            final Writer globalWriter = getSaveFileWriter(GLOBAL_DCL_FILENAME);
-            getNewGson().toJson(getGlobalDeclarations().serialize(), globalWriter);
-            globalWriter.close();
-        }
+        final File componentsFolder = new File(directory, FOLDER_NAME_COMPONENTS);
+        final File systemsFolder = new File(directory, FOLDER_NAME_SYSTEMS);
+        final File testsFolder = new File(directory, FOLDER_NAME_TESTS);
+        FileUtils.forceMkdir(componentsFolder);
+        FileUtils.forceMkdir(systemsFolder);
+        FileUtils.forceMkdir(testsFolder);
 
-        // Save components
+        final Map<File, SaveFile> files = new LinkedHashMap<>();
+
+        // Global declarations
+        files.put(new File(directory, GLOBAL_DCL_FILENAME + JSON_FILENAME_EXTENSION), SaveFile.of(getGlobalDeclarations().serialize()));
+
+        // Components use their cached content hash, so unchanged components are not serialized again,
+        // and changed components are streamed to their file without building the tree of the whole component
         for (final Component component : getComponents()) {
-            final Writer writer = getSaveFileWriter(component.getName(), FOLDER_NAME_COMPONENTS);
-            getNewGson().toJson(component.serialize(), writer);
-            writer.close();
+            files.put(new File(componentsFolder, component.getName() + JSON_FILENAME_EXTENSION), new SaveFile(component.getContentHash(), component::serialize));
         }
 
-        // Save systems
         for (final EcdarSystem system : getSystems()) {
-            final Writer writer = getSaveFileWriter(system.getName(), FOLDER_NAME_SYSTEMS);
-            getNewGson().toJson(system.serialize(), writer);
-            writer.close();
+            files.put(new File(systemsFolder, system.getName() + JSON_FILENAME_EXTENSION), SaveFile.of(system.serialize()));
         }
 
         // Test objects
         for (final MutationTestPlan plan : getTestPlans()) {
-            final Writer writer = getSaveFileWriter(plan.getName(), FOLDER_NAME_TESTS);
-            getNewGson().toJson(plan.serialize(), writer);
-            writer.close();
+            files.put(new File(testsFolder, plan.getName() + JSON_FILENAME_EXTENSION), SaveFile.of(plan.serialize()));
+        }
+
+        // Queries
+        files.put(new File(directory, QUERIES_FILENAME + JSON_FILENAME_EXTENSION), SaveFile.of(serializeQueries()));
+
+        // Files of models that have been deleted or renamed
+        final List<File> staleFiles = new ArrayList<>();
+        for (final File folder : List.of(componentsFolder, systemsFolder, testsFolder)) {
+            final File[] existingFiles = folder.listFiles((dir, name) -> name.endsWith(JSON_FILENAME_EXTENSION));
+            if (existingFiles == null) continue;
+
+            for (final File file : existingFiles) {
+                if (!files.containsKey(file)) staleFiles.add(file);
+            }
+        }
+
+        // On case-insensitive file systems, a model that is only renamed by case has the same file as before,
+        // so its old file is deleted before the new one is written, instead of after
+        for (final File staleFile : new ArrayList<>(staleFiles)) {
+            for (final File file : files.keySet()) {
+                if (file.getParentFile().equals(staleFile.getParentFile()) && file.getName().equalsIgnoreCase(staleFile.getName())) {
+                    deleteFile(staleFile);
+                    staleFiles.remove(staleFile);
+                    savedFileRevisions.remove(file.getAbsolutePath());
+                    break;
+                }
+            }
+        }
+
+        // Write the changed files before deleting anything, such that an interrupted save never loses a model
+        for (final Map.Entry<File, SaveFile> entry : files.entrySet()) {
+            final File file = entry.getKey();
+            final SaveFile saveFile = entry.getValue();
+            final String path = file.getAbsolutePath();
+
+            if (saveFile.revision.equals(savedFileRevisions.get(path)) && file.exists()) continue;
+
+            JsonStreams.write(file, saveFile.content);
+            savedFileRevisions.put(path, saveFile.revision);
         }
 
-        // Serializes queries
-        {
-            final JsonArray queries = new JsonArray();
-            getQueries().forEach(query -> queries.add(query.serialize()));
-            final Writer queriesWriter = getSaveFileWriter(QUERIES_FILENAME);
-            getNewGson().toJson(queries, queriesWriter);
-            queriesWriter.close();
+        for (final File staleFile : staleFiles) {
+            deleteFile(staleFile);
         }
 
         Ecdar.showToast("Project saved.");
     }
 
+    private void deleteFile(final File file) throws IOException {
+        FileUtils.forceDelete(file);
+        savedFileRevisions.remove(file.getAbsolutePath());
+    }
+
+    /**
+     * Serializes and stores this as a single packed file, see {@link PackedProjectFile}.
+     * @param file the file to store at
+     * @throws IOException if an IO error happens
+     */
+    public void serializePacked(final File file) throws IOException {
+        final List<PackedProjectFile.Model> models = new ArrayList<>();
+        final Declarations globalDeclarations = getGlobalDeclarations();
+        models.add(new PackedProjectFile.Model(PackedProjectFile.Kind.GLOBAL_DECLARATIONS, GLOBAL_DCL_FILENAME, globalDeclarations::serialize));
+        final JsonArray queries = serializeQueries();
+        models.add(new PackedProjectFile.Model(PackedProjectFile.Kind.QUERIES, QUERIES_FILENAME, writer -> JsonStreams.write(queries, writer)));
+
+        for (final Component component : getComponents()) {
+            models.add(new PackedProjectFile.Model(PackedProjectFile.Kind.COMPONENT_STUB, component.getName(), writer -> JsonStreams.write(component.serializeStub(), writer)));
+            models.add(new PackedProjectFile.Model(PackedProjectFile.Kind.COMPONENT, component.getName(), component::serialize));
+        }
+
+        for (final EcdarSystem system : getSystems()) {
+            models.add(new PackedProjectFile.Model(PackedProjectFile.Kind.SYSTEM, system.getName(), system::serialize));
+        }
+
+        for (final MutationTestPlan plan : getTestPlans()) {
+            models.add(new PackedProjectFile.Model(PackedProjectFile.Kind.TEST_PLAN, plan.getName(), plan::serialize));
+        }
+
+        PackedProjectFile.write(file, models);
+        Ecdar.showToast("Project exported.");
+    }
+
+    /**
+     * Deserializes this from a single packed file, see {@link PackedProjectFile}.
+     * The components are created as stubs from their packed stubs, and each component is only decoded when its locations and edges are used.
+     * Until then, the stubs keep the packed file in memory.
+     * The other models are decoded right away.
+     * @param file the packed project
+     * @throws IOException if the file could not be read or is not a packed project
+     */
+    public void deserializePacked(final File file) throws IOException {
+        final PackedProjectFile packedFile = PackedProjectFile.open(file);
+
+        final Map<String, PackedProjectFile.Entry> componentStubs = new HashMap<>();
+        for (final PackedProjectFile.Entry entry : packedFile.getEntries()) {
+            if (entry.getKind() == PackedProjectFile.Kind.COMPONENT_STUB) componentStubs.put(entry.getName(), entry);
+        }
+
+        for (final PackedProjectFile.Entry entry : packedFile.getEntries()) {
+            switch (entry.getKind()) {
+                case GLOBAL_DECLARATIONS:
+                    setGlobalDeclarations(new Declarations(packedFile.read(entry).getAsJsonObject()));
+                    break;
+                case QUERIES:
+                    packedFile.read(entry).getAsJsonArray().forEach(jsonElement -> getQueries().add(new Query((JsonObject) jsonElement)));
+                    break;
+                case COMPONENT:
+                    final PackedProjectFile.Entry stub = componentStubs.get(entry.getName());
+                    if (stub == null) {
+                        getComponents().add(Component.createStub(packedFile.read(entry).getAsJsonObject()));
+                    } else {
+                        getComponents().add(Component.createStub(packedFile.read(stub).getAsJsonObject(), () -> {
+                            try {
+                                return packedFile.read(entry).getAsJsonObject();
+                            } catch (final IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+                    }
+                    break;
+                case SYSTEM:
+                    getSystems().add(new EcdarSystem(packedFile.read(entry).getAsJsonObject()));
+                    break;
+                case TEST_PLAN:
+                    getTestPlans().add(new MutationTestPlan(packedFile.read(entry).getAsJsonObject()));
+                    break;
+                case COMPONENT_STUB:
+                    // Read together with the component
+                    break;
+            }
+        }
+    }
+
     /**
      * Reads files in a folder and deserialize this based on the files and folders.
      * @param projectFolder the folder where an Ecdar project are supposed to be
@@ -258,102 +374,44 @@ public class Project {
      * @throws IOException if problems occurs when reading a file
      */
     private void deserializeFileHelper(final File file) throws IOException {
-        final String fileContent = Files.asCharSource(file, Charset.defaultCharset()).read();
-
         switch (file.getName()) {
             case GLOBAL_DCL_FILENAME + JSON_FILENAME_EXTENSION:
-                final JsonObject globalJsonObj = JsonParser.parseString(fileContent).getAsJsonObject();
+                final JsonObject globalJsonObj = JsonStreams.read(file).getAsJsonObject();
                 setGlobalDeclarations(new Declarations(globalJsonObj));
+                savedFileRevisions.put(file.getAbsolutePath(), getRevision(getGlobalDeclarations().serialize()));
                 break;
             case QUERIES_FILENAME + JSON_FILENAME_EXTENSION:
-                JsonParser.parseString(fileContent).getAsJsonArray().forEach(jsonElement -> {
+                JsonStreams.read(file).getAsJsonArray().forEach(jsonElement -> {
                     final Query newQuery = new Query((JsonObject) jsonElement);
                     getQueries().add(newQuery);
                 });
+                savedFileRevisions.put(file.getAbsolutePath(), getRevision(serializeQueries()));
                 break;
         }
     }
 
     /**
      * Deserializes the components in a folder.
+     * The components are created as stubs, such that the locations and edges of a component are only built when it is used.
      * @param componentsFolder the folder containing the JSON components files
      * @throws IOException if an IO error occurs
      */
     private void deserializeComponents(final File componentsFolder) throws IOException {
-        // If there are no files do not try to deserialize
-        final File[] files = componentsFolder.listFiles();
-        if (files == null || files.length == 0) return;
-
-        // Create map for deserialization
-        final Map<String, JsonObject> nameJsonMap = new HashMap<>();
-
-        for (final File file : files) {
-            // If JSON file
-            if (file.getName().endsWith(JSON_FILENAME_EXTENSION)) {
-                final String fileContent = Files.asCharSource(file, Charset.defaultCharset()).read();
-
-                // Parse the file to an json object
-                final JsonObject jsonObject = JsonParser.parseString(fileContent).getAsJsonObject();
-
-                // Fetch the name of the component
-                final String componentName = jsonObject.get("name").getAsString();
-
-                // Add the name and the json object to the map
-                nameJsonMap.put(componentName, jsonObject);
-            }
-        }
-
-        final List<Map.Entry<String, JsonObject>> list = new LinkedList<>(nameJsonMap.entrySet());
-        // Defined Custom Comparator here
-        list.sort(Comparator.comparing(Map.Entry::getKey));
-
-        final List<JsonObject> orderedJsonComponents = new ArrayList<>();
-
-        for (final Map.Entry<String, JsonObject> mapEntry : list) {
-            orderedJsonComponents.add(mapEntry.getValue());
-        }
-
-        // Reverse the list such that the greatest depth is first in the list
-        Collections.reverse(orderedJsonComponents);
-
         // Add the components to the list
-        orderedJsonComponents.forEach(jsonObject -> getComponents().add(new Component(jsonObject)));
+        for (final Pair<File, JsonObject> file : readJsonFilesInReverseNameOrder(componentsFolder)) {
+            final Component component = Component.createStub(file.getValue());
+            getComponents().add(component);
+            savedFileRevisions.put(file.getKey().getAbsolutePath(), component.getContentHash());
+        }
     }
 
     private void deserializeSystems(final File systemsFolder) throws IOException {
-        // If there are no folder or no files, do not try to deserialize
-        if (systemsFolder == null) return;
-        final File[] files = systemsFolder.listFiles();
-        if (files == null || files.length == 0) return;
-
-        // Create map for deserialization
-        final Map<String, JsonObject> nameJsonMap = new HashMap<>();
-
-        for (final File file : files) {
-            // If JSON file
-            if (file.getName().endsWith(JSON_FILENAME_EXTENSION)) {
-                final String fileContent = Files.asCharSource(file, Charset.defaultCharset()).read();
-                final JsonObject json = JsonParser.parseString(fileContent).getAsJsonObject();
-                final String name = json.get("name").getAsString();
-                nameJsonMap.put(name, json);
-            }
-        }
-
-        final List<Map.Entry<String, JsonObject>> list = new LinkedList<>(nameJsonMap.entrySet());
-
-        list.sort(Map.Entry.comparingByKey());
-
-        final List<JsonObject> orderedJsonSystems = new ArrayList<>();
-
-        for (final Map.Entry<String, JsonObject> mapEntry : list) {
-            orderedJsonSystems.add(mapEntry.getValue());
-        }
-
-        // Reverse the list such that the greatest depth is first in the list
-        Collections.reverse(orderedJsonSystems);
-
         // Add the systems to the list
-        orderedJsonSystems.forEach(json -> getSystems().add(new EcdarSystem(json)));
+        for (final Pair<File, JsonObject> file : readJsonFilesInReverseNameOrder(systemsFolder)) {
+            final EcdarSystem system = new EcdarSystem(file.getValue());
+            getSystems().add(system);
+            savedFileRevisions.put(file.getKey().getAbsolutePath(), getRevision(system.serialize()));
+        }
     }
 
     /**
@@ -362,37 +420,70 @@ public class Project {
      * @throws IOException if an IO error occurs
      */
     private void deserializeTestObjects(final File directory) throws IOException {
-        // If there are no files do not try to deserialize
-        final File[] files = directory.listFiles();
-        if (files == null || files.length == 0) return;
-
-        // Create map for deserialization
-        final Map<String, JsonObject> nameJsonMap = new HashMap<>();
-
-        for (final File file : files) {
-            // If JSON file
-            if (file.getName().endsWith(JSON_FILENAME_EXTENSION)) {
-                final String fileContent = Files.asCharSource(file, Charset.defaultCharset()).read();
-                final JsonObject json = JsonParser.parseString(fileContent).getAsJsonObject();
-                final String name = json.get("name").getAsString();
-                nameJsonMap.put(name, json);
-            }
+        // Add the test objects to the list
+        for (final Pair<File, JsonObject> file : readJsonFilesInReverseNameOrder(directory)) {
+            final MutationTestPlan plan = new MutationTestPlan(file.getValue());
+            getTestPlans().add(plan);
+            savedFileRevisions.put(file.getKey().getAbsolutePath(), getRevision(plan.serialize()));
         }
+    }
 
-        final List<Map.Entry<String, JsonObject>> list = new LinkedList<>(nameJsonMap.entrySet());
+    /**
+     * Reads and parses the JSON files in a folder.
+     * The files are streamed and parsed in parallel, as this is where most of the time of loading a large project is spent,
+     * while the model objects are constructed from the result on the calling thread.
+     * If several files contain an object with the same name, the one in the file that is last by path is used.
+     * @param folder the folder containing the JSON files, or null if the project has no such folder
+     * @return the files and their JSON objects ordered by their name, reversed such that the greatest depth is first in the list
+     * @throws IOException if a file could not be read
+     */
+    private static List<Pair<File, JsonObject>> readJsonFilesInReverseNameOrder(final File folder) throws IOException {
+        // If there are no folder or no files, do not try to deserialize
+        if (folder == null) return Collections.emptyList();
+        final File[] files = folder.listFiles();
+        if (files == null || files.length == 0) return Collections.emptyList();
+
+        final List<Pair<File, JsonObject>> jsonFiles;
+        try {
+            // The encounter order of the sorted files is kept, so the result does not depend on the parallelism
+            jsonFiles = Arrays.stream(files)
+                    .filter(file -> file.getName().endsWith(JSON_FILENAME_EXTENSION))
+                    .sorted()
+                    .parallel()
+                    .map(file -> new Pair<>(file, readJsonObject(file)))
+                    .collect(Collectors.toList());
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
 
-        list.sort(Map.Entry.comparingByKey());
+        final Map<String, Pair<File, JsonObject>> nameJsonMap = new TreeMap<>(Comparator.reverseOrder());
+        jsonFiles.forEach(file -> nameJsonMap.put(file.getValue().get("name").getAsString(), file));
 
-        final List<JsonObject> orderedJsonSystems = new ArrayList<>();
+        return new ArrayList<>(nameJsonMap.values());
+    }
 
-        for (final Map.Entry<String, JsonObject> mapEntry : list) {
-            orderedJsonSystems.add(mapEntry.getValue());
+    private static JsonObject readJsonObject(final File file) {
+        try {
+            return JsonStreams.read(file).getAsJsonObject();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        // Reverse the list such that the greatest depth is first in the list
-        Collections.reverse(orderedJsonSystems);
+    /**
+     * A file to save, with a revision that identifies its content.
+     */
+    private static class SaveFile {
+        private final String revision;
+        private final JsonStreams.Content content;
 
-        // Add the test objects to the list
-        orderedJsonSystems.forEach(json -> getTestPlans().add(new MutationTestPlan(json)));
+        SaveFile(final String revision, final JsonStreams.Content content) {
+            this.revision = revision;
+            this.content = content;
+        }
+
+        static SaveFile of(final JsonElement json) {
+            return new SaveFile(getRevision(json), writer -> JsonStreams.write(json, writer));
+        }
     }
 }
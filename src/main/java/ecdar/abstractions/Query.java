@@ -20,16 +20,18 @@ public class Query implements Serializable {
     private static final String QUERY = "query";
     private static final String COMMENT = "comment";
     private static final String IS_PERIODIC = "isPeriodic";
+    private static final String IS_HEDGED = "isHedged";
     private static final String ENGINE = "engine";
 
     private final StringProperty query = new SimpleStringProperty("");
     private final StringProperty comment = new SimpleStringProperty("");
     private final StringProperty errors = new SimpleStringProperty("");
     private final SimpleBooleanProperty isPeriodic = new SimpleBooleanProperty(false);
+    private final SimpleBooleanProperty isHedged = new SimpleBooleanProperty(false);
     private final ObjectProperty<QueryState> queryState = new SimpleObjectProperty<>(QueryState.UNKNOWN);
     private final ObjectProperty<QueryType> type = new SimpleObjectProperty<>();
     private Engine engine;
-
+    private QueryPriority priority = QueryPriority.INTERACTIVE;
 
     private final Consumer<Boolean> successConsumer = (aBoolean) -> {
         if (aBoolean) {
@@ -127,6 +129,23 @@ public class Query implements Serializable {
         this.isPeriodic.set(isPeriodic);
     }
 
+    /**
+     * Whether the query is also sent to another engine, if its engine is slower than usual
+     *
+     * @return whether the query is hedged
+     */
+    public boolean isHedged() {
+        return isHedged.get();
+    }
+
+    public SimpleBooleanProperty isHedgedProperty() {
+        return isHedged;
+    }
+
+    public void setIsHedged(final boolean isHedged) {
+        this.isHedged.set(isHedged);
+    }
+
     public Engine getEngine() {
         return engine;
     }
@@ -135,6 +154,14 @@ public class Query implements Serializable {
         this.engine = engine;
     }
 
+    public QueryPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(QueryPriority priority) {
+        this.priority = priority;
+    }
+
     public void setType(QueryType type) {
         this.type.set(type);
     }
@@ -156,9 +183,18 @@ public class Query implements Serializable {
     }
 
     /**
-     * Executes the query
+     * Executes the query as an interactive query
      */
     public void execute() throws NoSuchElementException {
+        execute(QueryPriority.INTERACTIVE);
+    }
+
+    /**
+     * Executes the query with the given priority
+     *
+     * @param priority the priority of the query compared to other queries on the same engine
+     */
+    public void execute(QueryPriority priority) throws NoSuchElementException {
         if (getQueryState().equals(QueryState.RUNNING) || !StringValidator.validateQuery(getQuery()))
             return;
 
@@ -168,6 +204,7 @@ public class Query implements Serializable {
             return;
         }
 
+        setPriority(priority);
         setQueryState(QueryState.RUNNING);
         errors().set("");
 
@@ -178,30 +215,45 @@ public class Query implements Serializable {
         // If the query has been cancelled, ignore the result
         if (getQueryState() == QueryState.UNKNOWN) return;
 
-        if (value.hasRefinement() && value.getRefinement().getSuccess()) {
-            setQueryState(QueryState.SUCCESSFUL);
-            getSuccessConsumer().accept(true);
-        } else if (value.hasConsistency() && value.getConsistency().getSuccess()) {
-            setQueryState(QueryState.SUCCESSFUL);
-            getSuccessConsumer().accept(true);
-        } else if (value.hasDeterminism() && value.getDeterminism().getSuccess()) {
-            setQueryState(QueryState.SUCCESSFUL);
-            getSuccessConsumer().accept(true);
-        } else if (value.hasComponent()) {
-            setQueryState(QueryState.SUCCESSFUL);
-            getSuccessConsumer().accept(true);
-            JsonObject returnedComponent = (JsonObject) JsonParser.parseString(value.getComponent().getComponent().getJson());
-            addGeneratedComponent(new Component(returnedComponent));
-        } else {
+        if (!isSatisfied(value)) {
             setQueryState(QueryState.ERROR);
             getSuccessConsumer().accept(false);
+            return;
+        }
+
+        setQueryState(QueryState.SUCCESSFUL);
+        getSuccessConsumer().accept(true);
+
+        if (value.hasComponent()) {
+            JsonObject returnedComponent = (JsonObject) JsonParser.parseString(value.getComponent().getComponent().getJson());
+            addGeneratedComponent(new Component(returnedComponent));
         }
     }
 
+    /**
+     * Checks whether the response of an engine shows that a query is satisfied.
+     * Queries that return a component are satisfied when the component is returned.
+     *
+     * @param value the response of the engine
+     * @return whether the query is satisfied
+     */
+    public static boolean isSatisfied(QueryProtos.QueryResponse value) {
+        return (value.hasRefinement() && value.getRefinement().getSuccess())
+                || (value.hasConsistency() && value.getConsistency().getSuccess())
+                || (value.hasDeterminism() && value.getDeterminism().getSuccess())
+                || value.hasComponent();
+    }
+
     private void handleQueryBackendError(Throwable t) {
         // If the query has been cancelled, ignore the error
         if (getQueryState() == QueryState.UNKNOWN) return;
 
+        // The query was superseded by a newer one, so the result is unknown rather than an error
+        if (t instanceof BackendException.QueryCancelledException) {
+            setQueryState(QueryState.UNKNOWN);
+            return;
+        }
+
         // Each error starts with a capitalized description of the error equal to the gRPC error type encountered
         String errorType = t.getMessage().split(":\\s+", 2)[0];
 
@@ -251,6 +303,7 @@ public class Query implements Serializable {
         result.addProperty(QUERY, getType().getQueryName() + ": " + getQuery());
         result.addProperty(COMMENT, getComment());
         result.addProperty(IS_PERIODIC, isPeriodic());
+        result.addProperty(IS_HEDGED, isHedged());
         result.addProperty(ENGINE, engine.getName());
 
         return result;
@@ -274,6 +327,10 @@ public class Query implements Serializable {
             setIsPeriodic(json.getAsJsonPrimitive(IS_PERIODIC).getAsBoolean());
         }
 
+        if (json.has(IS_HEDGED)) {
+            setIsHedged(json.getAsJsonPrimitive(IS_HEDGED).getAsBoolean());
+        }
+
         if(json.has(ENGINE)) {
             setEngine(BackendHelper.getEngineByName(json.getAsJsonPrimitive(ENGINE).getAsString()));
         } else {
@@ -285,6 +342,7 @@ public class Query implements Serializable {
         if (getQueryState().equals(QueryState.RUNNING)) {
             forcedCancel = true;
             setQueryState(QueryState.UNKNOWN);
+            getEngine().cancelQuery(this);
         }
     }
 
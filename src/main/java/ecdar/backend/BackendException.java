@@ -70,6 +70,16 @@ public class BackendException extends Exception {
         }
     }
 
+    public static class QueryCancelledException extends BackendException {
+        public QueryCancelledException(final String message) {
+            super(message);
+        }
+
+        public QueryCancelledException(final String message, final Throwable cause) {
+            super(message, cause);
+        }
+    }
+
     public static class QueryUncertainException extends BackendException {
         public QueryUncertainException(final String s) {
             super(s);
@@ -17,12 +17,57 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public final class BackendHelper {
     final static String TEMP_DIRECTORY = "temporary";
     private static Engine defaultEngine = null;
     private static ObservableList<Engine> engines = new SimpleListProperty<>();
     private static final List<Runnable> enginesUpdatedListeners = new ArrayList<>();
+    private static final List<Runnable> engineHealthListeners = new ArrayList<>();
+    private static final QueryResultCache queryResultCache = new QueryResultCache(1000); // Magic number
+    private static final BackgroundQueryScheduler backgroundQueryScheduler = new BackgroundQueryScheduler();
+
+    /**
+     * Shared thread for delayed and periodic backend work, such as retrying requests
+     */
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Backend scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Close engine connections that have not been used for a while
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                new ArrayList<>(engines).forEach(Engine::reapIdleConnections);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, 30, 30, TimeUnit.SECONDS);
+
+        // Detect engines that cannot be reached before queries are sent to them
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                new ArrayList<>(engines).forEach(Engine::checkHealth);
+                engineHealthListeners.forEach(Runnable::run);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, 5, 5, TimeUnit.SECONDS);
+
+        // Track the queue depth and connection utilisation of the engines over time
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                new ArrayList<>(engines).forEach(Engine::sampleMetrics);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
 
     /**
      * Stores a query as a backend XML query file in the "temporary" directory.
@@ -77,10 +122,18 @@ public final class BackendHelper {
     }
 
     /**
-     * Stop all running queries.
+     * Starts the minimum number of warm instances of every engine in the background
+     */
+    public static void warmUpEngines() {
+        engines.forEach(Engine::warmUp);
+    }
+
+    /**
+     * Stop all running queries, including background queries, and release all engine connections.
      */
     public static void stopQueries() {
         Ecdar.getProject().getQueries().forEach(Query::cancel);
+        engines.forEach(Engine::cancelAllQueries);
     }
 
     /**
@@ -134,17 +187,49 @@ public final class BackendHelper {
     }
 
     /**
-     * Sets the list of engines to match the provided list
+     * Sets the list of engines to match the provided list.
+     * An {@link EngineGroup} is added after the engines for each group that the engines are members of.
+     * The connections of the replaced engines are closed first, as they cannot be reached through the list afterwards.
      *
      * @param updatedEngines The list of engines that should be stored
      */
     public static void updateEngineInstances(ArrayList<Engine> updatedEngines) {
-        BackendHelper.engines = FXCollections.observableList(updatedEngines);
+        try {
+            clearEngineConnections();
+        } catch (BackendException e) {
+            Ecdar.showToast("An exception was encountered during shutdown of engine connections");
+            e.printStackTrace();
+        }
+
+        ArrayList<Engine> enginesAndGroups = new ArrayList<>(updatedEngines);
+        enginesAndGroups.addAll(EngineGroup.fromEngines(updatedEngines));
+
+        BackendHelper.engines = FXCollections.observableList(enginesAndGroups);
         for (Runnable runnable : BackendHelper.enginesUpdatedListeners) {
             runnable.run();
         }
     }
 
+    /**
+     * Adds a listener that is run on the backend scheduler after each round of engine health checks.
+     * The results of the checks arrive asynchronously, so the listener sees those of the previous round.
+     *
+     * @param runnable the listener
+     */
+    public static void addEngineHealthListener(Runnable runnable) {
+        BackendHelper.engineHealthListeners.add(runnable);
+    }
+
+    /**
+     * Returns the scheduler shared by the backend for delayed and periodic work.
+     * Tasks must be short, as they share a single thread.
+     *
+     * @return the shared scheduler
+     */
+    public static ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
     /**
      * Returns the ObservableList of engines
      *
@@ -166,4 +251,55 @@ public final class BackendHelper {
     public static void addEngineInstanceListener(Runnable runnable) {
         BackendHelper.enginesUpdatedListeners.add(runnable);
     }
+
+    /**
+     * Get the scheduler of the background queries, which is notified whenever the model changes
+     *
+     * @return the background query scheduler
+     */
+    public static BackgroundQueryScheduler getBackgroundQueryScheduler() {
+        return backgroundQueryScheduler;
+    }
+
+    /**
+     * Returns the cache of query responses shared by all engines
+     *
+     * @return The query result cache
+     */
+    public static QueryResultCache getQueryResultCache() {
+        return BackendHelper.queryResultCache;
+    }
+
+    /**
+     * Stores the cached query responses and the cached reachability of locations in the project directory
+     *
+     * @param projectDirectory The directory of the project
+     */
+    public static void saveQueryResultCache(File projectDirectory) {
+        try {
+            queryResultCache.save(new File(projectDirectory, QueryResultCache.FILE_NAME));
+            backgroundQueryScheduler.getReachabilityCache().save(new File(projectDirectory, ReachabilityCache.FILE_NAME));
+        } catch (IOException e) {
+            e.printStackTrace();
+            Ecdar.showToast("Could not store the query result cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the cached query responses and the cached reachability of locations with those stored in the project directory, if any
+     *
+     * @param projectDirectory The directory of the project
+     */
+    public static void loadQueryResultCache(File projectDirectory) {
+        queryResultCache.clear();
+        backgroundQueryScheduler.getReachabilityCache().clear();
+
+        try {
+            queryResultCache.load(new File(projectDirectory, QueryResultCache.FILE_NAME));
+            backgroundQueryScheduler.getReachabilityCache().load(new File(projectDirectory, ReachabilityCache.FILE_NAME));
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            Ecdar.showToast("Could not load the query result cache: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,354 @@
+package ecdar.backend;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import ecdar.Ecdar;
+import ecdar.abstractions.*;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the background queries, that is the periodic queries and the reachability checks of the locations,
+ * when the model changes.
+ * Changes are debounced, such that a burst of changes, e.g. typing a guard, results in a single round of queries.
+ * A round only checks the locations of the components whose content has changed since the previous round,
+ * and of the components that are composed with such a component in a system.
+ * Likewise, only the queries that depend on a changed component, see {@link QueryDependencyIndex},
+ * are run again if periodic, or have their result cleared otherwise.
+ * All rounds run on the same thread, which only creates the queries, as the engines run them asynchronously.
+ * The reachability found for each location is shown on the location and cached by the fingerprint of its component,
+ * such that the locations of a component that returns to an earlier state are updated without asking an engine.
+ */
+public class BackgroundQueryScheduler {
+    private static final long debounceDelay = 500;
+    private static final int REACHABILITY_CACHE_SIZE = 200;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Background query scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ScheduledFuture<?> scheduledRound;
+    private boolean shouldCheckAllComponents = true;
+
+    // Only accessed on the thread of the executor
+    private final Map<String, String> checkedContentHashes = new HashMap<>();
+    private String checkedGlobalDeclarations;
+    private final Map<String, List<ReachabilityQuery>> runningQueries = new HashMap<>();
+    private final Map<String, String> currentFingerprints = new HashMap<>();
+    private final Set<String> unloadedComponents = new HashSet<>();
+
+    private final ReachabilityCache reachabilityCache = new ReachabilityCache(REACHABILITY_CACHE_SIZE);
+    private final QueryDependencyIndex queryDependencyIndex = new QueryDependencyIndex();
+
+    private final AtomicInteger numberOfRunningQueries = new AtomicInteger(0);
+    private final ReadOnlyIntegerWrapper runningQueriesProperty = new ReadOnlyIntegerWrapper(0);
+
+    /**
+     * Registers that the model has changed.
+     * A round of background queries is run once no further changes have been registered for a short while.
+     */
+    public synchronized void modelChanged() {
+        if (scheduledRound != null) scheduledRound.cancel(false);
+        scheduledRound = executor.schedule(() -> {
+            try {
+                runRound();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, debounceDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers that all components should be checked in the next round, regardless of whether they have changed,
+     * for instance because a new project has been loaded or background queries have been turned on.
+     */
+    public synchronized void checkAllComponents() {
+        shouldCheckAllComponents = true;
+        modelChanged();
+    }
+
+    /**
+     * Cancels the next round and all running background queries.
+     * The next round after this checks all components.
+     */
+    public synchronized void stop() {
+        if (scheduledRound != null) scheduledRound.cancel(false);
+        shouldCheckAllComponents = true;
+
+        executor.execute(() -> {
+            runningQueries.values().forEach(queries -> queries.forEach(this::cancel));
+            runningQueries.clear();
+        });
+    }
+
+    public ReachabilityCache getReachabilityCache() {
+        return reachabilityCache;
+    }
+
+    /**
+     * Get the number of background queries that are waiting for an answer from an engine.
+     * The property is updated on the JavaFX application thread.
+     *
+     * @return the property holding the number of running background queries
+     */
+    public ReadOnlyIntegerProperty runningQueriesProperty() {
+        return runningQueriesProperty.getReadOnlyProperty();
+    }
+
+    private void runRound() {
+        final Project project = Ecdar.getProject();
+        if (project == null || !Ecdar.shouldRunBackgroundQueries.get()) return;
+
+        boolean checkAll;
+        synchronized (this) {
+            checkAll = shouldCheckAllComponents;
+            shouldCheckAllComponents = false;
+        }
+
+        final List<Component> components = new ArrayList<>(project.getComponents());
+        final Map<String, String> contentHashes = new HashMap<>();
+        components.forEach(component -> contentHashes.put(component.getName(), component.getContentHash()));
+
+        // The global declarations are part of every component
+        final String globalDeclarations = project.getGlobalDeclarations().getDeclarationsText();
+        if (!globalDeclarations.equals(checkedGlobalDeclarations)) checkAll = true;
+
+        final Set<String> changedComponents = new HashSet<>();
+        contentHashes.forEach((name, hash) -> {
+            if (checkAll || !hash.equals(checkedContentHashes.get(name))) changedComponents.add(name);
+        });
+
+        checkedContentHashes.clear();
+        checkedContentHashes.putAll(contentHashes);
+        checkedGlobalDeclarations = globalDeclarations;
+
+        // Forget queries of components that have been removed or renamed
+        runningQueries.keySet().removeIf(name -> {
+            if (contentHashes.containsKey(name)) return false;
+            runningQueries.get(name).forEach(this::cancel);
+            return true;
+        });
+        currentFingerprints.keySet().retainAll(contentHashes.keySet());
+
+        // Stubs that have been built since they were skipped have not been checked, even though they have not changed
+        final Set<String> loadedComponents = new HashSet<>();
+        for (Component component : components) {
+            if (component.isGraphLoaded() && unloadedComponents.remove(component.getName())) loadedComponents.add(component.getName());
+        }
+        unloadedComponents.retainAll(contentHashes.keySet());
+
+        if (changedComponents.isEmpty() && loadedComponents.isEmpty()) return;
+
+        final Map<String, Set<String>> composedComponents = getComposedComponents(project);
+        final Set<String> affectedComponents = new HashSet<>(changedComponents);
+        changedComponents.forEach(name -> affectedComponents.addAll(composedComponents.getOrDefault(name, Set.of())));
+        affectedComponents.addAll(loadedComponents);
+
+        // Only the queries that depend on a changed component have outdated results
+        final List<Query> dependentQueries = checkAll
+                ? new ArrayList<>(project.getQueries())
+                : queryDependencyIndex.getDependentQueries(changedComponents, project);
+        for (Query query : dependentQueries) {
+            if (query.isPeriodic()) {
+                query.execute(QueryPriority.PERIODIC);
+            } else {
+                markAsStale(query);
+            }
+        }
+
+        for (Component component : components) {
+            if (!affectedComponents.contains(component.getName())) continue;
+
+            // The locations of a stub are not built just to be checked, they are checked once the stub is used
+            if (!component.isGraphLoaded()) {
+                unloadedComponents.add(component.getName());
+                currentFingerprints.remove(component.getName());
+                continue;
+            }
+
+            final String fingerprint = getFingerprint(component.getName(), contentHashes, composedComponents, globalDeclarations);
+
+            // The running queries are still relevant, e.g. if a composed component changed in a way that was undone
+            if (!checkAll && component.isIncludeInPeriodicCheck() && fingerprint.equals(currentFingerprints.get(component.getName()))) continue;
+
+            // The results of queries for the previous version of the component are not relevant anymore
+            List<ReachabilityQuery> previousQueries = runningQueries.remove(component.getName());
+            if (previousQueries != null) previousQueries.forEach(this::cancel);
+
+            final List<Location> locations = new ArrayList<>(component.getLocations());
+            if (!component.isIncludeInPeriodicCheck()) {
+                currentFingerprints.remove(component.getName());
+                Platform.runLater(() -> locations.forEach(location -> location.setReachability(Location.Reachability.EXCLUDED)));
+                continue;
+            }
+
+            currentFingerprints.put(component.getName(), fingerprint);
+
+            final List<ReachabilityQuery> queries = new ArrayList<>();
+            for (Location location : locations) {
+                Optional<Location.Reachability> cachedReachability = reachabilityCache.get(fingerprint, location.getId());
+                if (cachedReachability.isPresent()) {
+                    Platform.runLater(() -> location.setReachability(cachedReachability.get()));
+                    continue;
+                }
+
+                Platform.runLater(() -> location.setReachability(Location.Reachability.UNKNOWN));
+                startReachabilityQuery(component, location, fingerprint).ifPresent(queries::add);
+            }
+            runningQueries.put(component.getName(), queries);
+        }
+    }
+
+    /**
+     * Clears the result of a query that is not run in the background, as the model it was found for has changed
+     *
+     * @param query the query whose result is outdated
+     */
+    private static void markAsStale(final Query query) {
+        Platform.runLater(() -> {
+            if (query.getQueryState() != QueryState.RUNNING) query.setQueryState(QueryState.UNKNOWN);
+        });
+    }
+
+    /**
+     * Gets the fingerprint of a component, which changes whenever something that the reachability
+     * of its locations depends on changes.
+     * This is the content of the component, the components composed with it, and the global declarations.
+     *
+     * @param name               the name of the component
+     * @param contentHashes      the content hash of each component by name
+     * @param composedComponents the names of the components composed with each component
+     * @param globalDeclarations the global declarations of the project
+     * @return the fingerprint
+     */
+    private static String getFingerprint(final String name, final Map<String, String> contentHashes,
+                                         final Map<String, Set<String>> composedComponents, final String globalDeclarations) {
+        final Hasher hasher = Hashing.sha256().newHasher()
+                .putString(globalDeclarations, StandardCharsets.UTF_8)
+                .putChar('\0')
+                .putString(contentHashes.get(name), StandardCharsets.UTF_8);
+
+        for (String composedName : new TreeSet<>(composedComponents.getOrDefault(name, Set.of()))) {
+            final String composedHash = contentHashes.get(composedName);
+            if (composedHash != null) hasher.putChar('\0').putString(composedHash, StandardCharsets.UTF_8);
+        }
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Gets the components that each component is composed with in a system of the project.
+     *
+     * @param project the project containing the components and systems
+     * @return the names of the composed components by the name of each component that is part of a system
+     */
+    private static Map<String, Set<String>> getComposedComponents(final Project project) {
+        final Map<String, Set<String>> composedComponents = new HashMap<>();
+
+        for (EcdarSystem system : project.getSystems()) {
+            final Set<String> systemComponents = new HashSet<>();
+            for (ComponentInstance instance : system.getComponentInstances()) {
+                if (instance.getComponent() != null) systemComponents.add(instance.getComponent().getName());
+            }
+
+            for (String name : systemComponents) {
+                final Set<String> others = composedComponents.computeIfAbsent(name, n -> new HashSet<>());
+                systemComponents.stream().filter(other -> !other.equals(name)).forEach(others::add);
+            }
+        }
+
+        return composedComponents;
+    }
+
+    /**
+     * Sends a reachability query for a location to the default engine.
+     * The result is handled on the thread of the scheduler.
+     *
+     * @return the sent query, or empty if there is no engine to send it to
+     */
+    private Optional<ReachabilityQuery> startReachabilityQuery(final Component component, final Location location, final String fingerprint) {
+        final Query query = new Query(BackendHelper.getLocationReachableQuery(location, component), "", QueryState.UNKNOWN);
+        query.setType(QueryType.REACHABILITY);
+        query.setPriority(QueryPriority.BACKGROUND);
+        if (query.getEngine() == null) return Optional.empty();
+
+        final ReachabilityQuery reachabilityQuery = new ReachabilityQuery(query, component.getName(), location, fingerprint);
+        updateRunningQueries(1);
+        query.getEngine().enqueueQuery(query,
+                response -> executor.execute(() -> finish(reachabilityQuery, Query.isSatisfied(response)
+                        ? Location.Reachability.REACHABLE
+                        : Location.Reachability.UNREACHABLE)),
+                error -> executor.execute(() -> finish(reachabilityQuery, Location.Reachability.UNKNOWN)));
+
+        return Optional.of(reachabilityQuery);
+    }
+
+    /**
+     * Shows the reachability found by an engine on the location, if the component has not changed in the meantime,
+     * and caches it unless the engine failed to determine it.
+     */
+    private void finish(final ReachabilityQuery reachabilityQuery, final Location.Reachability reachability) {
+        if (!reachabilityQuery.finish()) return;
+        updateRunningQueries(-1);
+
+        if (reachability != Location.Reachability.UNKNOWN) {
+            reachabilityCache.put(reachabilityQuery.fingerprint, reachabilityQuery.location.getId(), reachability);
+        }
+
+        if (reachabilityQuery.fingerprint.equals(currentFingerprints.get(reachabilityQuery.componentName))) {
+            Platform.runLater(() -> reachabilityQuery.location.setReachability(reachability));
+        }
+    }
+
+    private void cancel(final ReachabilityQuery reachabilityQuery) {
+        if (!reachabilityQuery.finish()) return;
+        updateRunningQueries(-1);
+
+        reachabilityQuery.query.getEngine().cancelQuery(reachabilityQuery.query);
+    }
+
+    private void updateRunningQueries(final int delta) {
+        final int running = numberOfRunningQueries.addAndGet(delta);
+        Platform.runLater(() -> runningQueriesProperty.set(running));
+    }
+
+    /**
+     * A reachability query that is sent to an engine, together with the location and version of the component it is for
+     */
+    private static class ReachabilityQuery {
+        final Query query;
+        final String componentName;
+        final Location location;
+        final String fingerprint;
+        private boolean finished = false;
+
+        ReachabilityQuery(Query query, String componentName, Location location, String fingerprint) {
+            this.query = query;
+            this.componentName = componentName;
+            this.location = location;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Marks the query as finished
+         *
+         * @return false if the query was already finished or cancelled
+         */
+        boolean finish() {
+            if (finished) return false;
+            finished = true;
+            return true;
+        }
+    }
+}
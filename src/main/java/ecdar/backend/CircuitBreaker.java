@@ -0,0 +1,122 @@
+package ecdar.backend;
+
+/**
+ * Circuit breaker that stops requests to an engine that cannot be reached.
+ * The circuit opens when a number of consecutive requests have failed, after which requests fail immediately.
+ * Once the circuit has been open for a while, it becomes half-open and lets a single probe through.
+ * The circuit closes if the probe succeeds and opens again if it fails.
+ */
+public class CircuitBreaker {
+    private static final int OUTCOME_WINDOW_SIZE = 20;
+
+    public enum State {
+        CLOSED("healthy"),
+        OPEN("down"),
+        HALF_OPEN("probing");
+
+        private final String description;
+
+        State(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final boolean[] outcomes = new boolean[OUTCOME_WINDOW_SIZE];
+    private int nextOutcome = 0;
+    private int numberOfOutcomes = 0;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt;
+    private long probeStartedAt = -1;
+
+    /**
+     * @param failureThreshold   the number of consecutive failures that opens the circuit
+     * @param openDurationMillis the time that the circuit stays open before a probe is allowed,
+     *                           and the time after which an unanswered probe is given up
+     */
+    public CircuitBreaker(int failureThreshold, long openDurationMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    /**
+     * Checks whether a request may be sent.
+     * If the circuit has been open long enough, it becomes half-open and the request is allowed as a probe.
+     *
+     * @return whether the request may be sent
+     */
+    public synchronized boolean allowRequest() {
+        long now = System.currentTimeMillis();
+
+        switch (state) {
+            case OPEN:
+                if (now - openedAt < openDurationMillis) return false;
+                state = State.HALF_OPEN;
+                probeStartedAt = now;
+                return true;
+            case HALF_OPEN:
+                // Only one probe at a time, unless the previous probe never got an answer
+                if (now - probeStartedAt < openDurationMillis) return false;
+                probeStartedAt = now;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Registers that a request reached the engine, which closes the circuit
+     */
+    public synchronized void recordSuccess() {
+        recordOutcome(true);
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Registers that a request could not reach the engine, which opens the circuit
+     * if the failure threshold is reached or the request was a probe
+     */
+    public synchronized void recordFailure() {
+        recordOutcome(false);
+        consecutiveFailures++;
+
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Gets the share of failures among the most recent requests
+     *
+     * @return the error rate between 0 and 1
+     */
+    public synchronized double getErrorRate() {
+        if (numberOfOutcomes == 0) return 0;
+
+        int failures = 0;
+        for (int i = 0; i < numberOfOutcomes; i++) {
+            if (!outcomes[i]) failures++;
+        }
+
+        return (double) failures / numberOfOutcomes;
+    }
+
+    private void recordOutcome(boolean success) {
+        outcomes[nextOutcome] = success;
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+        numberOfOutcomes = Math.min(numberOfOutcomes + 1, outcomes.length);
+    }
+}
@@ -1,18 +1,22 @@
 package ecdar.backend;
 
-import EcdarProtoBuf.ComponentProtos;
 import EcdarProtoBuf.QueryProtos;
 import com.google.gson.JsonObject;
 import com.google.protobuf.Empty;
 import ecdar.Ecdar;
 import ecdar.abstractions.Component;
 import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryType;
 import ecdar.utility.serialize.Serializable;
+import io.grpc.Context;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import javafx.beans.property.SimpleBooleanProperty;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 public class Engine implements Serializable {
@@ -23,31 +27,71 @@ public class Engine implements Serializable {
     private static final String PORT_RANGE_START = "portRangeStart";
     private static final String PORT_RANGE_END = "portRangeEnd";
     private static final String LOCKED = "locked";
-    private static final int responseDeadline = 20000;
+    private static final String MIN_WARM_INSTANCES = "minWarmInstances";
+    private static final String IDLE_TIMEOUT = "idleTimeout";
+    private static final String USE_UNIX_SOCKET = "useUnixSocket";
+    private static final String GROUP = "group";
+    private static final String HEDGING_PERCENTILE = "hedgingPercentile";
+    private static final int defaultResponseDeadline = 20000;
+    private static final int maxResponseDeadline = 600000;
+    private static final int deadlineLatencyMultiplier = 3;
+    private static final double deadlineLatencyPercentile = 0.95;
     private static final int rerunRequestDelay = 200;
+    private static final int maxRerunRequestDelay = 10000;
     private static final int numberOfRetriesPerQuery = 5;
+    private static final int circuitBreakerFailureThreshold = 3;
+    private static final int circuitBreakerOpenDuration = 10000;
+    private static final int healthCheckDeadline = 2000;
+    private static final int defaultHedgingDelay = 1000;
 
     private String name;
     private boolean isLocal;
     private boolean isDefault;
     private int portStart;
     private int portEnd;
+    private int minWarmInstances = 1;
+    /**
+     * The number of seconds that a connection can be idle before it is closed, or 0 if connections are never closed
+     */
+    private int idleTimeout = 300;
+    private boolean useUnixSocket = false;
+    /**
+     * The name of the engine group that this engine is a member of, or an empty string if it is not in a group
+     */
+    private String group = "";
+    /**
+     * The percentile of the latencies of this engine after which hedged queries are also sent to another engine
+     */
+    private int hedgingPercentile = 95;
     private final SimpleBooleanProperty locked = new SimpleBooleanProperty(false);
     /**
      * This is either a path to the engines executable or an IP address at which the engine is running
      */
     private String engineLocation;
 
-    private final ArrayList<EngineConnection> startedConnections = new ArrayList<>();
-    private final BlockingQueue<GrpcRequest> requestQueue = new ArrayBlockingQueue<>(200); // Magic number
-    // ToDo NIELS: Refactor to resize queue on port range change
-    private final BlockingQueue<EngineConnection> availableConnections = new ArrayBlockingQueue<>(200); // Magic number
+    private final List<EngineConnection> startedConnections = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<GrpcRequest> requestQueue = new PriorityBlockingQueue<>(11,
+            Comparator.comparing(GrpcRequest::getPriority).thenComparingLong(GrpcRequest::getSequenceNumber));
+    private final BlockingQueue<EngineConnection> availableConnections = new LinkedBlockingQueue<>();
     private final EngineConnectionStarter connectionStarter = new EngineConnectionStarter(this);
+    private final EngineMetrics metrics = new EngineMetrics();
+    private final EngineProcessSupervisor processSupervisor = new EngineProcessSupervisor(this);
+    private final Map<String, PendingQuery> pendingQueries = new ConcurrentHashMap<>();
+    private final Map<Query, HedgedQuery> hedgedQueries = new ConcurrentHashMap<>();
+
+    /**
+     * Single thread that hands queued requests to available connections.
+     * It never waits for a connection, so a slow query only occupies the connection it is running on.
+     */
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Engine request dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(circuitBreakerFailureThreshold, circuitBreakerOpenDuration);
 
     public Engine() {
-        GrpcRequestConsumer consumer = new GrpcRequestConsumer();
-        Thread consumerThread = new Thread(consumer);
-        consumerThread.start();
     }
 
     public Engine(final JsonObject jsonObject) {
@@ -115,6 +159,82 @@ public class Engine implements Serializable {
         return this.portEnd - this.portStart + 1;
     }
 
+    public int getMinWarmInstances() {
+        return minWarmInstances;
+    }
+
+    public void setMinWarmInstances(int minWarmInstances) {
+        this.minWarmInstances = minWarmInstances;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(int idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Whether local instances should be started on Unix domain sockets instead of TCP ports, if supported.
+     * See {@link EngineConnectionStarter#isUnixSocketSupported()}
+     *
+     * @return true if Unix domain sockets should be used
+     */
+    public boolean shouldUseUnixSocket() {
+        return useUnixSocket;
+    }
+
+    public void setUseUnixSocket(boolean useUnixSocket) {
+        this.useUnixSocket = useUnixSocket;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    public int getHedgingPercentile() {
+        return hedgingPercentile;
+    }
+
+    public void setHedgingPercentile(int hedgingPercentile) {
+        this.hedgingPercentile = hedgingPercentile;
+    }
+
+    /**
+     * Get the time to wait for an answer to a hedged query before it is also sent to another engine.
+     * This is the hedging percentile of the recent latencies of such queries on this engine.
+     *
+     * @param type the type of the query
+     * @return the delay in milliseconds
+     */
+    public long getHedgingDelay(QueryType type) {
+        long latency = metrics.getLatencyPercentileMillis(type, hedgingPercentile / 100.0);
+        return latency < 0 ? defaultHedgingDelay : latency;
+    }
+
+    /**
+     * Whether the engine can currently be reached, meaning that its circuit breaker is closed
+     *
+     * @return whether the engine is healthy
+     */
+    public boolean isHealthy() {
+        return circuitBreaker.getState() == CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * Get the circuit breaker that stops requests to this engine while it cannot be reached
+     *
+     * @return the circuit breaker of this engine
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
     public void lockInstance() {
         locked.set(true);
     }
@@ -123,34 +243,200 @@ public class Engine implements Serializable {
         return locked;
     }
 
-    protected ArrayList<EngineConnection> getStartedConnections() {
+    protected List<EngineConnection> getStartedConnections() {
         return startedConnections;
     }
 
     /**
-     * Enqueue query for execution with consumers for success and error
+     * Get the statistics of the requests handled by this engine
+     *
+     * @return the metrics of this engine
+     */
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the supervisor of the local processes of this engine
+     *
+     * @return the process supervisor of this engine
+     */
+    public EngineProcessSupervisor getProcessSupervisor() {
+        return processSupervisor;
+    }
+
+    /**
+     * Get the number of connections that are started, both those in use and those available
+     *
+     * @return the size of the connection pool
+     */
+    public int getNumberOfStartedConnections() {
+        return startedConnections.size();
+    }
+
+    /**
+     * Get the number of started connections that are waiting for a query
+     *
+     * @return the number of idle connections
+     */
+    public int getNumberOfAvailableConnections() {
+        return availableConnections.size();
+    }
+
+    /**
+     * Get the number of requests waiting for an available connection
+     *
+     * @return the number of queued requests
+     */
+    public int getQueueSize() {
+        return requestQueue.size();
+    }
+
+    /**
+     * Records the current queue depth and connection utilisation in the metrics of this engine
+     */
+    void sampleMetrics() {
+        metrics.recordSample(getQueueSize(), getNumberOfStartedConnections(), getNumberOfAvailableConnections());
+    }
+
+    /**
+     * Get the deadline for a query of the given type.
+     * The deadline is a multiple of the 95th percentile of the recent latencies of such queries on this engine,
+     * but never less than the default deadline, such that queries that are known to be slow are given more time.
+     *
+     * @param type the type of the query
+     * @return the deadline in milliseconds
+     */
+    public long getResponseDeadline(QueryType type) {
+        long latency = metrics.getLatencyPercentileMillis(type, deadlineLatencyPercentile);
+        if (latency < 0) return defaultResponseDeadline;
+
+        return Math.max(defaultResponseDeadline, Math.min(maxResponseDeadline, latency * deadlineLatencyMultiplier));
+    }
+
+    /**
+     * Get the deadline for an attempt at a query of the given type.
+     * The deadline of {@link #getResponseDeadline(QueryType)} doubles with each attempt,
+     * such that a query that exceeded its deadline is not retried with the same deadline.
+     *
+     * @param type    the type of the query
+     * @param attempt the attempt, starting from 1
+     * @return the deadline in milliseconds
+     */
+    public long getResponseDeadline(QueryType type, int attempt) {
+        return Math.min(maxResponseDeadline, getResponseDeadline(type) << Math.min(Math.max(attempt - 1, 0), 16));
+    }
+
+    /**
+     * Enqueue query for execution with consumers for success and error.
+     * The query is queued with the priority of {@link Query#getPriority()},
+     * such that interactive queries are dispatched before periodic and background queries.
+     * If the query is hedged, see {@link Query#isHedged()}, it is also sent to another engine
+     * when this engine has not answered within its hedging percentile of latency.
      *
      * @param query the query to enqueue for execution
      * @param successConsumer consumer for returned QueryResponse
      * @param errorConsumer consumer for any throwable that might result from the execution
      */
     public void enqueueQuery(Query query, Consumer<QueryProtos.QueryResponse> successConsumer, Consumer<Throwable> errorConsumer) {
+        // Only the engine that the query belongs to hedges it, such that the engines it is hedged on do not hedge it again
+        if (query.isHedged() && query.getEngine() == this) {
+            Optional<Engine> secondary = HedgedQuery.selectSecondary(this, query);
+            if (secondary.isPresent()) {
+                HedgedQuery hedgedQuery = new HedgedQuery(query, this, secondary.get(), successConsumer, errorConsumer);
+                hedgedQueries.put(query, hedgedQuery);
+                hedgedQuery.start();
+                return;
+            }
+        }
+
+        enqueueRequest(query, successConsumer, errorConsumer);
+    }
+
+    /**
+     * Enqueue query for execution on this engine only
+     *
+     * @param query the query to enqueue for execution
+     * @param successConsumer consumer for returned QueryResponse
+     * @param errorConsumer consumer for any throwable that might result from the execution
+     */
+    protected void enqueueRequest(Query query, Consumer<QueryProtos.QueryResponse> successConsumer, Consumer<Throwable> errorConsumer) {
+        // Answer the query immediately, if nothing relevant to it has changed since it was last executed
+        final String cacheKey = QueryResultCache.getKey(query, this);
+        Optional<QueryProtos.QueryResponse> cachedResponse = BackendHelper.getQueryResultCache().get(cacheKey);
+        if (cachedResponse.isPresent()) {
+            successConsumer.accept(cachedResponse.get());
+            return;
+        }
+
+        // Fail fast instead of waiting for a connection to an engine that cannot be reached
+        if (!circuitBreaker.allowRequest()) {
+            errorConsumer.accept(new BackendException.NoAvailableEngineConnectionException("\"" + getName() + "\" cannot be reached, queries are not sent until it recovers"));
+            return;
+        }
+
+        // Attach to an identical query that is already queued or running, instead of sending it again
+        final QueryPriority priority = query.getPriority();
+        final PendingQuery pendingQuery;
+        synchronized (pendingQueries) {
+            PendingQuery existing = pendingQueries.get(cacheKey);
+            if (existing != null && existing.subscribe(query, successConsumer, errorConsumer)) {
+                promoteRequest(existing.getRequest(), priority);
+                return;
+            }
+
+            pendingQuery = new PendingQuery();
+            pendingQuery.subscribe(query, successConsumer, errorConsumer);
+            pendingQueries.put(cacheKey, pendingQuery);
+        }
+
         GrpcRequest request = new GrpcRequest(engineConnection -> {
+            final QueryType type = query.getType();
+            final long deadline = getResponseDeadline(type, pendingQuery.getRequest().tries);
+            final AtomicLong sentAt = new AtomicLong();
+
             StreamObserver<QueryProtos.QueryResponse> responseObserver = new StreamObserver<>() {
                 @Override
                 public void onNext(QueryProtos.QueryResponse value) {
-                    successConsumer.accept(value);
+                    metrics.recordLatency(type, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt.get()));
+                    circuitBreaker.recordSuccess();
+                    BackendHelper.getQueryResultCache().put(cacheKey, value);
+                    pendingQueries.remove(cacheKey, pendingQuery);
+                    pendingQuery.complete(value);
                 }
 
                 @Override
                 public void onError(Throwable t) {
-                    errorConsumer.accept(t);
+                    Status.Code code = Status.fromThrowable(t).getCode();
+
+                    // The query took at least as long as the deadline, which is recorded for the deadlines of later queries
+                    if (code == Status.Code.DEADLINE_EXCEEDED && sentAt.get() != 0) metrics.recordDeadlineExceeded(type, deadline);
+
+                    metrics.recordCompletion();
                     setConnectionAsAvailable(engineConnection);
+
+                    // The components could not be synchronized within the deadline, so the engine never got the query.
+                    // A new connection waits for the engine to be ready, so an engine that is down fails this way
+                    if (code == Status.Code.DEADLINE_EXCEEDED && sentAt.get() == 0) {
+                        circuitBreaker.recordFailure();
+                    } else {
+                        recordCallOutcome(code);
+                    }
+
+                    GrpcRequest request = pendingQuery.getRequest();
+                    if (isTransientFailure(code) && request.tries < numberOfRetriesPerQuery && !request.isCancelled()) {
+                        retryRequest(request);
+                        return;
+                    }
+
+                    pendingQueries.remove(cacheKey, pendingQuery);
+                    pendingQuery.fail(t);
                 }
 
                 @Override
                 public void onCompleted() {
                     // Release engine connection
+                    metrics.recordCompletion();
                     setConnectionAsAvailable(engineConnection);
                 }
             };
@@ -159,11 +445,219 @@ public class Engine implements Serializable {
                     .setId(0)
                     .setQuery(query.getType().getQueryName() + ": " + query.getQuery());
 
-            engineConnection.getStub().withDeadlineAfter(responseDeadline, TimeUnit.MILLISECONDS)
-                    .sendQuery(queryBuilder.build(), responseObserver);
-        });
+            synchronizeComponents(engineConnection, () -> {
+                sentAt.set(System.nanoTime());
+                engineConnection.getStub().withDeadlineAfter(deadline, TimeUnit.MILLISECONDS)
+                        .sendQuery(queryBuilder.build(), responseObserver);
+            }, responseObserver::onError);
+        }, (t) -> {
+            pendingQueries.remove(cacheKey, pendingQuery);
+            pendingQuery.fail(t);
+        }, priority);
+        pendingQuery.setRequest(request);
 
         requestQueue.add(request);
+        scheduleDispatch();
+    }
+
+    /**
+     * Checks whether a failed request might succeed if it is sent again.
+     *
+     * @param code the status of the failed call
+     * @return whether the request should be retried
+     */
+    private static boolean isTransientFailure(Status.Code code) {
+        return code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED;
+    }
+
+    /**
+     * Registers whether a failed call reached the engine in the circuit breaker.
+     * Cancelled calls and calls that exceeded their deadline say nothing about whether the engine can be reached.
+     *
+     * @param code the status of the failed call
+     */
+    private void recordCallOutcome(Status.Code code) {
+        if (code == Status.Code.UNAVAILABLE) {
+            circuitBreaker.recordFailure();
+        } else if (code != Status.Code.CANCELLED && code != Status.Code.DEADLINE_EXCEEDED) {
+            circuitBreaker.recordSuccess();
+        }
+    }
+
+    /**
+     * Checks whether the engine can be reached by sending an empty component update through an idle connection.
+     * Engines without idle connections are busy answering queries, which show whether they can be reached.
+     * A remote engine without any connections is connected to, such that an engine that is down is detected
+     * before queries are sent to it. While the circuit breaker is open, no check is done until a probe is allowed.
+     */
+    public void checkHealth() {
+        dispatcher.execute(() -> {
+            if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED && !circuitBreaker.allowRequest()) return;
+
+            EngineConnection connection = availableConnections.poll();
+            if (connection == null) {
+                if (!startedConnections.isEmpty() || isLocal()) return;
+
+                connection = connectionStarter.tryStartNewConnection();
+                if (connection == null) return;
+
+                startedConnections.add(connection);
+                connection.connect();
+            }
+
+            final EngineConnection checkedConnection = connection;
+            checkedConnection.getStub().withDeadlineAfter(healthCheckDeadline, TimeUnit.MILLISECONDS)
+                    .updateComponents(QueryProtos.ComponentsUpdateRequest.getDefaultInstance(), new StreamObserver<>() {
+                        @Override
+                        public void onNext(Empty value) {
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            Status.Code code = Status.fromThrowable(t).getCode();
+                            if (code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED) {
+                                circuitBreaker.recordFailure();
+                            } else {
+                                circuitBreaker.recordSuccess();
+                            }
+                            setConnectionAsAvailable(checkedConnection);
+                        }
+
+                        @Override
+                        public void onCompleted() {
+                            circuitBreaker.recordSuccess();
+                            setConnectionAsAvailable(checkedConnection);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Adds the request to the queue again after a delay, unless it is cancelled in the meantime.
+     * The delay doubles with each attempt and is jittered, such that requests that failed together are spread out.
+     *
+     * @param request the request to retry
+     */
+    private void retryRequest(GrpcRequest request) {
+        long delay = Math.min(maxRerunRequestDelay, (long) rerunRequestDelay << Math.min(Math.max(request.tries - 1, 0), 16));
+        long jitteredDelay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+
+        metrics.recordRetry();
+        BackendHelper.getScheduler().schedule(() -> {
+            if (request.isCancelled()) return;
+
+            // The engine went down while waiting, so there is no reason to try again
+            if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                request.fail(new BackendException.NoAvailableEngineConnectionException("\"" + getName() + "\" cannot be reached"));
+                return;
+            }
+
+            requestQueue.add(request);
+            scheduleDispatch();
+        }, jitteredDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops waiting for the result of a query.
+     * If no other query is waiting for the same result, the request is removed from the queue,
+     * or its gRPC call is cancelled on the engine, which releases the connection it is running on.
+     *
+     * @param query the query to cancel
+     */
+    public void cancelQuery(Query query) {
+        HedgedQuery hedgedQuery = hedgedQueries.remove(query);
+        if (hedgedQuery != null) {
+            hedgedQuery.cancel();
+        } else {
+            cancelPendingQuery(query);
+        }
+    }
+
+    /**
+     * Stops waiting for the result of a query on this engine only, see {@link #cancelQuery(Query)}
+     *
+     * @param query the query to cancel
+     */
+    protected void cancelPendingQuery(Query query) {
+        GrpcRequest request = null;
+        synchronized (pendingQueries) {
+            for (Map.Entry<String, PendingQuery> entry : pendingQueries.entrySet()) {
+                PendingQuery pendingQuery = entry.getValue();
+                if (!pendingQuery.isSubscribed(query)) continue;
+
+                if (pendingQuery.unsubscribe(query)) {
+                    pendingQueries.remove(entry.getKey(), pendingQuery);
+                    request = pendingQuery.getRequest();
+                }
+                break;
+            }
+        }
+
+        if (request != null) cancelRequest(request, new BackendException.QueryCancelledException("The query was cancelled"));
+    }
+
+    /**
+     * Forgets a hedged query that has finished
+     *
+     * @param query the query that has finished
+     */
+    void removeHedgedQuery(Query query) {
+        hedgedQueries.remove(query);
+    }
+
+    /**
+     * Cancels every queued and running query on this engine.
+     * The queries are notified with a {@link BackendException.QueryCancelledException}
+     * and all connections are released as soon as their calls are cancelled.
+     */
+    public void cancelAllQueries() {
+        hedgedQueries.values().forEach(HedgedQuery::cancel);
+        hedgedQueries.clear();
+
+        List<PendingQuery> cancelledQueries;
+        synchronized (pendingQueries) {
+            cancelledQueries = new ArrayList<>(pendingQueries.values());
+            pendingQueries.clear();
+        }
+
+        for (PendingQuery pendingQuery : cancelledQueries) {
+            BackendException.QueryCancelledException cause = new BackendException.QueryCancelledException("The query was stopped");
+
+            // Notify the subscribers first, such that they are not notified about the cancelled gRPC call
+            pendingQuery.fail(cause);
+            if (pendingQuery.getRequest() != null) cancelRequest(pendingQuery.getRequest(), cause);
+        }
+    }
+
+    /**
+     * Removes the request from the queue, if it has not been dispatched yet, and cancels its gRPC calls.
+     *
+     * @param request the request to cancel
+     * @param cause   the reason for the cancellation
+     */
+    private void cancelRequest(GrpcRequest request, Throwable cause) {
+        requestQueue.remove(request);
+        request.cancel(cause);
+    }
+
+    /**
+     * Raises the priority of a queued request, if the given priority is higher than its current one.
+     * This prevents an interactive query from waiting behind background work when it is coalesced with it.
+     *
+     * @param request  the request to promote
+     * @param priority the new priority
+     */
+    private void promoteRequest(GrpcRequest request, QueryPriority priority) {
+        if (request == null || priority.compareTo(request.getPriority()) >= 0) return;
+
+        // The request must be reinserted for the queue to respect the new priority
+        if (requestQueue.remove(request)) {
+            request.setPriority(priority);
+            requestQueue.add(request);
+            scheduleDispatch();
+        } else {
+            request.setPriority(priority);
+        }
     }
 
     /**
@@ -172,50 +666,238 @@ public class Engine implements Serializable {
      * @param connection to make available
      */
     private void setConnectionAsAvailable(EngineConnection connection) {
+        // Connections that have been closed in the meantime must not be handed out again
+        if (!startedConnections.contains(connection)) return;
+
+        connection.markIdle();
         if (!availableConnections.contains(connection)) availableConnections.add(connection);
+        scheduleDispatch();
     }
 
     /**
-     * Filters the list of open {@link EngineConnection}s to the specified {@link Engine} and returns the
-     * first match or attempts to start a new connection if none is found.
-     *
-     * @return a EngineConnection object linked to the engine, either from the open engine connection list
-     * or a newly started connection.
-     * @throws BackendException.NoAvailableEngineConnectionException if unable to retrieve a connection to the engine
-     *                                                               and unable to start a new one
-     */
-    private EngineConnection getConnection() throws BackendException.NoAvailableEngineConnectionException {
-        EngineConnection connection;
-        try {
-            // If no open connection is free, attempt to start a new one
-            if (availableConnections.size() < 1) {
+     * Starts connections in the background until the minimum number of warm instances is reached,
+     * such that the first queries do not wait for engine processes and channels to start.
+     */
+    public void warmUp() {
+        dispatcher.execute(() -> {
+            int targetSize = Math.min(getMinWarmInstances(), getNumberOfInstances());
+            while (startedConnections.size() < targetSize) {
                 EngineConnection newConnection = this.connectionStarter.tryStartNewConnection();
+                if (newConnection == null) break;
 
-                if (newConnection != null) {
-                    startedConnections.add(newConnection);
-                    initializeConnection(newConnection);
-                }
+                startedConnections.add(newConnection);
+                initializeConnection(newConnection);
             }
+        });
+    }
 
-            // Blocks until a connection becomes available
-            connection = availableConnections.take();
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+    /**
+     * Removes a connection whose process has stopped, such that no more requests are sent to it.
+     * Requests running on the connection fail with UNAVAILABLE and are retried on other connections.
+     *
+     * @param connection the connection to discard
+     */
+    void discardConnection(EngineConnection connection) {
+        availableConnections.remove(connection);
+        startedConnections.remove(connection);
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                connection.close();
+            } catch (BackendException.gRpcChannelShutdownException |
+                     BackendException.EngineProcessDestructionException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Starts a new connection in the background to replace one that was discarded,
+     * unless the engine already has as many connections as it has instances.
+     */
+    void restartConnection() {
+        dispatcher.execute(() -> {
+            if (startedConnections.size() >= getNumberOfInstances()) return;
+
+            EngineConnection newConnection = this.connectionStarter.tryStartNewConnection();
+            if (newConnection == null) return;
+
+            startedConnections.add(newConnection);
+            initializeConnection(newConnection);
+        });
+    }
+
+    /**
+     * Closes the available connections that have been idle for longer than the idle timeout,
+     * while keeping the minimum number of warm instances.
+     */
+    public void reapIdleConnections() {
+        if (getIdleTimeout() <= 0) return;
+
+        dispatcher.execute(() -> {
+            for (EngineConnection connection : availableConnections) {
+                if (startedConnections.size() <= getMinWarmInstances()) return;
+                if (connection.getIdleTimeMillis() < getIdleTimeout() * 1000L) continue;
+
+                // Removing the connection from the available ones ensures that it is not handed out while closing
+                if (!availableConnections.remove(connection)) continue;
+                startedConnections.remove(connection);
+
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        connection.close();
+                    } catch (BackendException.gRpcChannelShutdownException |
+                             BackendException.EngineProcessDestructionException e) {
+                        e.printStackTrace();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Schedule a run of the dispatcher, unless a run is already pending
+     */
+    private void scheduleDispatch() {
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                dispatchScheduled.set(false);
+                dispatchRequests();
+            });
         }
+    }
 
-        return connection;
+    /**
+     * Hands queued requests to available connections until either runs out.
+     * If requests are left in the queue, new connections are started for as long as the port range allows.
+     * The new connections trigger another dispatch when they become available.
+     */
+    private void dispatchRequests() {
+        GrpcRequest request;
+        while ((request = requestQueue.peek()) != null) {
+            // Keep an instance free for interactive queries, so that they never wait behind other work.
+            // The queue is ordered by priority, so all remaining requests are also non-interactive
+            if (request.getPriority() != QueryPriority.INTERACTIVE && !hasCapacityForNonInteractiveRequest()) break;
+
+            EngineConnection connection = availableConnections.poll();
+            if (connection == null) break;
+
+            if (!requestQueue.remove(request)) {
+                // The request was removed from the queue while the connection was retrieved
+                availableConnections.add(connection);
+                continue;
+            }
+
+            if (request.isCancelled()) {
+                // The request was cancelled while waiting to be retried
+                availableConnections.add(connection);
+                continue;
+            }
+
+            request.tries++;
+            metrics.recordDispatch(request.getWaitTimeNanos());
+            request.execute(connection);
+        }
+
+        startConnectionsForQueuedRequests();
+    }
+
+    /**
+     * Checks whether a periodic or background request can be dispatched while leaving an instance for interactive queries.
+     * Engines with a single instance are always allowed to run them.
+     *
+     * @return whether a non-interactive request can be dispatched
+     */
+    private boolean hasCapacityForNonInteractiveRequest() {
+        if (getNumberOfInstances() <= 1) return true;
+
+        int busyConnections = startedConnections.size() - availableConnections.size();
+        return busyConnections + 1 < getNumberOfInstances();
+    }
+
+    /**
+     * Starts new connections for the requests that are not covered by the available connections.
+     * If no connection can be started and none exist, the oldest request is rescheduled or failed.
+     */
+    private void startConnectionsForQueuedRequests() {
+        while (requestQueue.size() > availableConnections.size()
+                && startedConnections.size() < getNumberOfInstances()) {
+            EngineConnection newConnection = this.connectionStarter.tryStartNewConnection();
+            if (newConnection == null) break;
+
+            startedConnections.add(newConnection);
+            initializeConnection(newConnection);
+        }
+
+        // Without any connections, nothing will trigger the next dispatch
+        if (startedConnections.isEmpty() && !requestQueue.isEmpty()) {
+            GrpcRequest request = requestQueue.poll();
+            if (request == null) return;
+
+            request.tries++;
+            if (request.tries < numberOfRetriesPerQuery) {
+                retryRequest(request);
+            } else {
+                circuitBreaker.recordFailure();
+                Ecdar.showToast("Unable to find a connection to the requested engine");
+                request.fail(new BackendException.NoAvailableEngineConnectionException("Unable to find a connection to \"" + getName() + "\""));
+            }
+        }
     }
 
     /**
-     * Executes the gRPC requests required to initialize the connection for query execution
-     * NOTE: This will be unnecessary with the SW5 changes for the ProtoBuf
+     * Prepares the connection for query execution and makes it available once the engine has started.
+     * If the engine fails to start, the connection is discarded and another one is started in its place.
+     * No components are sent here, as they are synchronized before each query, see {@link #synchronizeComponents}.
      */
     private void initializeConnection(EngineConnection connection) {
+        connection.whenStarted().whenComplete((ignored, t) -> {
+            if (t != null) {
+                discardConnection(connection);
+                restartConnection();
+                return;
+            }
+
+            connection.connect();
+            setConnectionAsAvailable(connection);
+        });
+    }
+
+    /**
+     * Sends the components that have changed since they were last sent through the connection,
+     * and runs the given action once the engine has received them.
+     * Components are compared by the hash of their content, so the engine is never sent a component it already has.
+     * If a component has been removed from the project since the last update, all components are sent,
+     * such that the engine's components are replaced by those of the project.
+     *
+     * @param connection     the connection that is about to execute a query
+     * @param onSynchronized the action to run when the engine is up to date
+     * @param errorConsumer  consumer for any throwable that might result from the update
+     */
+    private void synchronizeComponents(EngineConnection connection, Runnable onSynchronized, Consumer<Throwable> errorConsumer) {
         QueryProtos.ComponentsUpdateRequest.Builder componentsBuilder = QueryProtos.ComponentsUpdateRequest.newBuilder();
-        for (Component c : Ecdar.getProject().getComponents()) {
-            componentsBuilder.addComponents(ComponentProtos.Component.newBuilder().setJson(c.serialize().toString()).build());
+        Map<String, String> sentRevisions = new HashMap<>();
+        List<Component> components = new ArrayList<>(Ecdar.getProject().getComponents());
+
+        Set<String> removedComponentNames = connection.getComponentRevisionNames();
+        components.forEach(c -> removedComponentNames.remove(c.getName()));
+        boolean isFullUpdate = !removedComponentNames.isEmpty();
+
+        for (Component c : components) {
+            String contentHash = c.getContentHash();
+            if (!isFullUpdate && connection.hasComponentRevision(c.getName(), contentHash)) continue;
+
+            componentsBuilder.addComponents(c.getSerializedProto());
+            sentRevisions.put(c.getName(), contentHash);
         }
 
+        if (sentRevisions.isEmpty() && !isFullUpdate) {
+            onSynchronized.run();
+            return;
+        }
+
+        // The query must be sent in the context of the request, such that it is cancelled together with the update
+        Context context = Context.current();
         StreamObserver<Empty> observer = new StreamObserver<>() {
             @Override
             public void onNext(Empty value) {
@@ -223,22 +905,35 @@ public class Engine implements Serializable {
 
             @Override
             public void onError(Throwable t) {
+                // A cancelled update leaves the connection usable, as the unsent components are sent with the next query
+                if (Status.fromThrowable(t).getCode() == Status.Code.CANCELLED) {
+                    errorConsumer.accept(t);
+                    return;
+                }
+
+                // The engine is in an unknown state, so the connection is discarded
                 try {
                     connection.close();
                 } catch (BackendException.gRpcChannelShutdownException |
                          BackendException.EngineProcessDestructionException e) {
-                    Ecdar.showToast("An error occurred while trying to start new connection to: \"" + getName() + "\" and an exception was thrown while trying to remove gRPC channel and potential process");
+                    Ecdar.showToast("An error occurred while trying to update the components of: \"" + getName() + "\" and an exception was thrown while trying to remove gRPC channel and potential process");
                 }
                 startedConnections.remove(connection);
+                availableConnections.remove(connection);
+                errorConsumer.accept(t);
             }
 
             @Override
             public void onCompleted() {
-                if (startedConnections.contains(connection)) setConnectionAsAvailable(connection);
+                removedComponentNames.forEach(connection::removeComponentRevision);
+                sentRevisions.forEach(connection::setComponentRevision);
+                context.run(onSynchronized);
             }
         };
 
-        connection.getStub().withDeadlineAfter(responseDeadline, TimeUnit.MILLISECONDS)
+        // The first update on a new connection might be sent before the engine is listening
+        connection.getStub().withWaitForReady()
+                .withDeadlineAfter(defaultResponseDeadline, TimeUnit.MILLISECONDS)
                 .updateComponents(componentsBuilder.build(), observer);
     }
 
@@ -283,37 +978,6 @@ public class Engine implements Serializable {
         if (!startedConnections.isEmpty()) throw exceptions;
     }
 
-    private class GrpcRequestConsumer implements Runnable {
-        @Override
-        public void run() {
-            while (true) {
-                try {
-                    GrpcRequest request = requestQueue.take();
-
-                    try {
-                        request.tries++;
-                        request.execute(getConnection());
-                    } catch (BackendException.NoAvailableEngineConnectionException e) {
-                        e.printStackTrace();
-                        if (request.tries < numberOfRetriesPerQuery) {
-                            new Timer().schedule(new TimerTask() {
-                                @Override
-                                public void run() {
-                                    requestQueue.add(request);
-                                }
-                            }, rerunRequestDelay);
-                        } else {
-                            Ecdar.showToast("Unable to find a connection to the requested engine");
-                        }
-                        return;
-                    }
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-    }
-
     @Override
     public JsonObject serialize() {
         final JsonObject result = new JsonObject();
@@ -324,6 +988,11 @@ public class Engine implements Serializable {
         result.addProperty(PORT_RANGE_START, getPortStart());
         result.addProperty(PORT_RANGE_END, getPortEnd());
         result.addProperty(LOCKED, getLockedProperty().get());
+        result.addProperty(MIN_WARM_INSTANCES, getMinWarmInstances());
+        result.addProperty(IDLE_TIMEOUT, getIdleTimeout());
+        result.addProperty(USE_UNIX_SOCKET, shouldUseUnixSocket());
+        result.addProperty(GROUP, getGroup());
+        result.addProperty(HEDGING_PERCENTILE, getHedgingPercentile());
 
         return result;
     }
@@ -337,6 +1006,26 @@ public class Engine implements Serializable {
         setPortStart(json.getAsJsonPrimitive(PORT_RANGE_START).getAsInt());
         setPortEnd(json.getAsJsonPrimitive(PORT_RANGE_END).getAsInt());
         if (json.getAsJsonPrimitive(LOCKED).getAsBoolean()) lockInstance();
+
+        if (json.has(MIN_WARM_INSTANCES)) {
+            setMinWarmInstances(json.getAsJsonPrimitive(MIN_WARM_INSTANCES).getAsInt());
+        }
+
+        if (json.has(IDLE_TIMEOUT)) {
+            setIdleTimeout(json.getAsJsonPrimitive(IDLE_TIMEOUT).getAsInt());
+        }
+
+        if (json.has(USE_UNIX_SOCKET)) {
+            setUseUnixSocket(json.getAsJsonPrimitive(USE_UNIX_SOCKET).getAsBoolean());
+        }
+
+        if (json.has(GROUP)) {
+            setGroup(json.getAsJsonPrimitive(GROUP).getAsString());
+        }
+
+        if (json.has(HEDGING_PERCENTILE)) {
+            setHedgingPercentile(json.getAsJsonPrimitive(HEDGING_PERCENTILE).getAsInt());
+        }
     }
 
     @Override
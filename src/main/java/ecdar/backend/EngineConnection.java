@@ -3,6 +3,14 @@ package ecdar.backend;
 import EcdarProtoBuf.EcdarBackendGrpc;
 import io.grpc.ManagedChannel;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -13,17 +21,41 @@ public class EngineConnection {
     private final ManagedChannel channel;
     private final Process process;
     private final int port;
+    /**
+     * The Unix domain socket that the engine is listening on, or null if the engine is reached over TCP
+     */
+    private final Path socketPath;
+    /**
+     * Completed when the engine is ready to accept the connection, which is immediately unless it is started on a Unix domain socket
+     */
+    private final CompletableFuture<Void> started;
+    /**
+     * The content hashes of the components that the engine has received through this connection, by component name
+     */
+    private final Map<String, String> componentRevisions = new ConcurrentHashMap<>();
+    private volatile long idleSince = System.nanoTime();
+    private volatile boolean closed = false;
 
-    EngineConnection(Engine engine, ManagedChannel channel, EcdarBackendGrpc.EcdarBackendStub stub, Process process) {
+    private EngineConnection(Engine engine, ManagedChannel channel, EcdarBackendGrpc.EcdarBackendStub stub, Process process, int port, Path socketPath, CompletableFuture<Void> started) {
         this.engine = engine;
         this.stub = stub;
         this.channel = channel;
         this.process = process;
-        this.port = Integer.parseInt(getStub().getChannel().authority().split(":", 2)[1]);
+        this.port = port;
+        this.socketPath = socketPath;
+        this.started = started;
+    }
+
+    EngineConnection(Engine engine, ManagedChannel channel, EcdarBackendGrpc.EcdarBackendStub stub, Process process, int port) {
+        this(engine, channel, stub, process, port, null, CompletableFuture.completedFuture(null));
     }
 
-    EngineConnection(Engine engine, ManagedChannel channel, EcdarBackendGrpc.EcdarBackendStub stub) {
-        this(engine, channel, stub, null);
+    EngineConnection(Engine engine, ManagedChannel channel, EcdarBackendGrpc.EcdarBackendStub stub, Process process, Path socketPath, CompletableFuture<Void> started) {
+        this(engine, channel, stub, process, -1, socketPath, started);
+    }
+
+    EngineConnection(Engine engine, ManagedChannel channel, EcdarBackendGrpc.EcdarBackendStub stub, int port) {
+        this(engine, channel, stub, null, port);
     }
 
     /**
@@ -46,10 +78,105 @@ public class EngineConnection {
         return engine;
     }
 
+    /**
+     * Get the TCP port of the engine
+     *
+     * @return the port, or -1 if the engine is reached through a Unix domain socket
+     */
     public int getPort() {
         return port;
     }
 
+    /**
+     * Get the address of the engine for use in messages
+     *
+     * @return the IP address and port, or the path of the Unix domain socket
+     */
+    public String getAddress() {
+        return socketPath != null ? "unix:" + socketPath : engine.getIpAddress() + ":" + port;
+    }
+
+    /**
+     * Get a future that is completed when the engine is ready to accept the connection,
+     * or completed exceptionally if the engine failed to start
+     *
+     * @return the future
+     */
+    CompletableFuture<Void> whenStarted() {
+        return started;
+    }
+
+    /**
+     * Makes the gRPC channel start connecting to the engine, if it is not already connected
+     */
+    void connect() {
+        channel.getState(true);
+    }
+
+    /**
+     * Whether the connection has been closed, in which case its process is expected to stop
+     *
+     * @return whether {@link #close()} has been called
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Registers that the connection has finished its work and is waiting for the next query
+     */
+    void markIdle() {
+        idleSince = System.nanoTime();
+    }
+
+    /**
+     * Get the time since the connection last finished its work
+     *
+     * @return the idle time in milliseconds
+     */
+    long getIdleTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - idleSince);
+    }
+
+    /**
+     * Checks whether the engine has received the given revision of a component through this connection
+     *
+     * @param componentName the name of the component
+     * @param contentHash   the hash of the content of the component
+     * @return whether the engine has the revision
+     */
+    boolean hasComponentRevision(String componentName, String contentHash) {
+        return contentHash.equals(componentRevisions.get(componentName));
+    }
+
+    /**
+     * Registers that the engine has received the given revision of a component through this connection
+     *
+     * @param componentName the name of the component
+     * @param contentHash   the hash of the content of the component
+     */
+    void setComponentRevision(String componentName, String contentHash) {
+        componentRevisions.put(componentName, contentHash);
+    }
+
+    /**
+     * Forgets the revision of a component that is no longer part of the project
+     *
+     * @param componentName the name of the component
+     */
+    void removeComponentRevision(String componentName) {
+        componentRevisions.remove(componentName);
+    }
+
+    /**
+     * Get the names of the components that the engine has received through this connection
+     *
+     * @return the names of the components
+     */
+    Set<String> getComponentRevisionNames() {
+        return new HashSet<>(componentRevisions.keySet());
+    }
+
     /**
      * Close the gRPC connection and end the process
      *
@@ -57,6 +184,8 @@ public class EngineConnection {
      * @throws BackendException.EngineProcessDestructionException if the connected engine process throws an ExecutionException, an InterruptedException, or a TimeoutException.
      */
     public void close() throws BackendException.gRpcChannelShutdownException, BackendException.EngineProcessDestructionException {
+        closed = true;
+
         if (!channel.isShutdown()) {
             try {
                 channel.shutdown();
@@ -65,7 +194,7 @@ public class EngineConnection {
                 }
             } catch (InterruptedException e) {
                 // Engine location is either the file path or the IP, here we want the channel address
-                throw new BackendException.gRpcChannelShutdownException("The gRPC channel to \"" + this.engine.getName() + "\" instance running at: " + engine.getIpAddress() + ":" + this.port + "was interrupted during termination", e.getCause());
+                throw new BackendException.gRpcChannelShutdownException("The gRPC channel to \"" + this.engine.getName() + "\" instance running at: " + getAddress() + " was interrupted during termination", e.getCause());
             }
         }
 
@@ -77,7 +206,15 @@ public class EngineConnection {
                 terminated.get(45, TimeUnit.SECONDS);
             } catch (ExecutionException | InterruptedException | TimeoutException e) {
                 // Add the engine location to the exception, as it contains the path to the executable
-                throw new BackendException.EngineProcessDestructionException("A process running: " + this.engine.getEngineLocation() + " on port " + this.port + " threw an exception during shutdown", e.getCause());
+                throw new BackendException.EngineProcessDestructionException("A process running: " + this.engine.getEngineLocation() + " at " + getAddress() + " threw an exception during shutdown", e.getCause());
+            }
+        }
+
+        if (socketPath != null) {
+            try {
+                Files.deleteIfExists(socketPath);
+            } catch (IOException e) {
+                e.printStackTrace();
             }
         }
     }
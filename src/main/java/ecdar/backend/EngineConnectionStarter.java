@@ -4,16 +4,39 @@ import EcdarProtoBuf.EcdarBackendGrpc;
 import ecdar.Ecdar;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.commons.lang3.SystemUtils;
 import org.springframework.util.SocketUtils;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 public class EngineConnectionStarter {
+    /**
+     * Event loop shared by all channels to Unix domain sockets, created when the first such channel is started
+     */
+    private static EventLoopGroup domainSocketEventLoopGroup;
+
     private final Engine engine;
     private final int maxRetriesForStartingEngineProcess = 3;
+    private final int unixSocketStartTimeout = 2000;
+    private final int unixSocketPollInterval = 10;
+    /**
+     * Set if the engine failed to start on a Unix domain socket, such that TCP is used for the rest of the session
+     */
+    private volatile boolean unixSocketFailed = false;
 
     EngineConnectionStarter(Engine engine) {
         this.engine = engine;
@@ -39,11 +62,30 @@ public class EngineConnectionStarter {
     }
 
     /**
-     * Starts a process, creates an EngineConnection to it, and returns that connection
+     * Checks whether local engines can be reached through Unix domain sockets on this system
+     *
+     * @return true if running on Linux with the native epoll transport available
+     */
+    public static boolean isUnixSocketSupported() {
+        return SystemUtils.IS_OS_LINUX && Epoll.isAvailable();
+    }
+
+    /**
+     * Starts a process, creates an EngineConnection to it, and returns that connection.
+     * If enabled for the engine, the process is started on a Unix domain socket,
+     * otherwise or if that fails, it is started on a TCP port.
      *
      * @return an EngineConnection to a local engine running in a Process or null if all ports are already in use
      */
     private EngineConnection startLocalConnection() {
+        if (engine.shouldUseUnixSocket() && !unixSocketFailed && isUnixSocketSupported()) {
+            EngineConnection connection = startLocalUnixSocketConnection();
+            if (connection != null) return connection;
+
+            unixSocketFailed = true;
+            Ecdar.showToast("Unable to start \"" + engine.getName() + "\" on a Unix domain socket, TCP is used instead");
+        }
+
         long port;
         try {
             port = SocketUtils.findAvailableTcpPort(engine.getPortStart(), engine.getPortEnd());
@@ -71,7 +113,74 @@ public class EngineConnectionStarter {
 
         ManagedChannel channel = startGrpcChannel(engine.getIpAddress(), port);
         EcdarBackendGrpc.EcdarBackendStub stub = EcdarBackendGrpc.newStub(channel);
-        return new EngineConnection(engine, channel, stub, p);
+        EngineConnection connection = new EngineConnection(engine, channel, stub, p, (int) port);
+        engine.getProcessSupervisor().supervise(connection, p);
+        return connection;
+    }
+
+    /**
+     * Starts a process listening on a new Unix domain socket and creates an EngineConnection to it.
+     * The socket is given to the engine as the address "unix:&lt;path&gt;".
+     * The connection is returned before the engine has created the socket, see {@link EngineConnection#whenStarted()},
+     * such that the dispatcher of the engine is not blocked while the process starts.
+     *
+     * @return an EngineConnection to the local engine, or null if the process could not be started
+     */
+    private EngineConnection startLocalUnixSocketConnection() {
+        Path socketPath = Path.of(System.getProperty("java.io.tmpdir"), "ecdar-" + UUID.randomUUID() + ".sock");
+        ProcessBuilder pb = new ProcessBuilder(engine.getEngineLocation(), "-p", "unix:" + socketPath);
+
+        Process p;
+        try {
+            p = pb.start();
+        } catch (IOException ioException) {
+            ioException.printStackTrace();
+            return null;
+        }
+
+        ManagedChannel channel = NettyChannelBuilder.forAddress(new DomainSocketAddress(socketPath.toString()))
+                .eventLoopGroup(getDomainSocketEventLoopGroup())
+                .channelType(EpollDomainSocketChannel.class)
+                .usePlaintext()
+                .keepAliveTime(1000, TimeUnit.MILLISECONDS)
+                .build();
+        EcdarBackendGrpc.EcdarBackendStub stub = EcdarBackendGrpc.newStub(channel);
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        EngineConnection connection = new EngineConnection(engine, channel, stub, p, socketPath, started);
+
+        waitForSocket(connection, p, socketPath, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(unixSocketStartTimeout), started);
+        return connection;
+    }
+
+    /**
+     * Completes the started future of the connection when the engine has created its socket.
+     * The socket is checked again on the shared scheduler until the deadline, instead of sleeping on the calling thread.
+     * The process is only supervised once it is running, as a failed start is handled by the connection.
+     */
+    private void waitForSocket(EngineConnection connection, Process p, Path socketPath, long deadline, CompletableFuture<Void> started) {
+        if (Files.exists(socketPath)) {
+            engine.getProcessSupervisor().supervise(connection, p);
+            started.complete(null);
+            return;
+        }
+
+        // Engines that do not support Unix domain sockets exit or never create the socket
+        if (!p.isAlive() || System.nanoTime() > deadline) {
+            unixSocketFailed = true;
+            Ecdar.showToast("Unable to start \"" + engine.getName() + "\" on a Unix domain socket, TCP is used instead");
+            started.completeExceptionally(new BackendException.NoAvailableEngineConnectionException("\"" + engine.getName() + "\" did not create its socket at " + socketPath));
+            return;
+        }
+
+        BackendHelper.getScheduler().schedule(() -> waitForSocket(connection, p, socketPath, deadline, started), unixSocketPollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private static synchronized EventLoopGroup getDomainSocketEventLoopGroup() {
+        if (domainSocketEventLoopGroup == null) {
+            domainSocketEventLoopGroup = new EpollEventLoopGroup(0, new DefaultThreadFactory("engine-domain-socket", true));
+        }
+
+        return domainSocketEventLoopGroup;
     }
 
     /**
@@ -84,10 +193,10 @@ public class EngineConnectionStarter {
         Supplier<Stream<Integer>> activeEnginePortsStream = () -> engine.getStartedConnections().stream()
                 .mapToInt(EngineConnection::getPort).boxed();
 
-        long port = engine.getPortStart();
+        long port = engine.getPortEnd() + 1;
         for (int currentPort = engine.getPortStart(); currentPort <= engine.getPortEnd(); currentPort++) {
             final int tempPort = currentPort;
-            if (activeEnginePortsStream.get().anyMatch((i) -> i == tempPort)) {
+            if (activeEnginePortsStream.get().noneMatch((i) -> i == tempPort)) {
                 port = currentPort;
                 break;
             }
@@ -100,7 +209,7 @@ public class EngineConnectionStarter {
 
         ManagedChannel channel = startGrpcChannel(engine.getIpAddress(), port);
         EcdarBackendGrpc.EcdarBackendStub stub = EcdarBackendGrpc.newStub(channel);
-        return new EngineConnection(engine, channel, stub);
+        return new EngineConnection(engine, channel, stub, (int) port);
     }
 
     /**
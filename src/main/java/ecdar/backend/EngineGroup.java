@@ -0,0 +1,200 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.QueryProtos;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryType;
+import io.grpc.Status;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A set of engines that are used as a single engine.
+ * Each query sent to the group is routed to the member with the lowest expected completion time,
+ * based on the number of requests ahead of it and the recent latency of the member.
+ * If a member cannot be reached, the query is sent to another member instead.
+ */
+public class EngineGroup extends Engine {
+    /**
+     * The latency assumed for members that have not answered a query of the type yet
+     */
+    private static final long defaultExpectedLatency = 100;
+
+    private final List<Engine> members;
+
+    public EngineGroup(String name, List<Engine> members) {
+        this.members = List.copyOf(members);
+        setName(name);
+        setGroup(name);
+    }
+
+    /**
+     * Creates a group for each distinct group name of the given engines
+     *
+     * @param engines the engines to group
+     * @return the groups in the order that their names first occur
+     */
+    public static List<EngineGroup> fromEngines(List<Engine> engines) {
+        Map<String, List<Engine>> membersByGroup = new LinkedHashMap<>();
+        for (Engine engine : engines) {
+            if (engine.getGroup() == null || engine.getGroup().isBlank()) continue;
+            membersByGroup.computeIfAbsent(engine.getGroup(), g -> new ArrayList<>()).add(engine);
+        }
+
+        List<EngineGroup> groups = new ArrayList<>();
+        membersByGroup.forEach((name, members) -> groups.add(new EngineGroup(name, members)));
+        return groups;
+    }
+
+    public List<Engine> getMembers() {
+        return members;
+    }
+
+    @Override
+    public int getNumberOfInstances() {
+        return members.stream().mapToInt(Engine::getNumberOfInstances).sum();
+    }
+
+    @Override
+    public int getNumberOfStartedConnections() {
+        return members.stream().mapToInt(Engine::getNumberOfStartedConnections).sum();
+    }
+
+    @Override
+    public int getNumberOfAvailableConnections() {
+        return members.stream().mapToInt(Engine::getNumberOfAvailableConnections).sum();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return members.stream().mapToInt(Engine::getQueueSize).sum();
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return members.stream().anyMatch(Engine::isHealthy);
+    }
+
+    /**
+     * Enqueue the query on the member with the lowest expected completion time.
+     * If the member cannot be reached, the query is enqueued on the next member.
+     *
+     * @param query           the query to enqueue for execution
+     * @param successConsumer consumer for returned QueryResponse
+     * @param errorConsumer   consumer for any throwable that might result from the execution
+     */
+    @Override
+    protected void enqueueRequest(Query query, Consumer<QueryProtos.QueryResponse> successConsumer, Consumer<Throwable> errorConsumer) {
+        enqueueOnMember(query, successConsumer, errorConsumer, new HashSet<>());
+    }
+
+    private void enqueueOnMember(Query query, Consumer<QueryProtos.QueryResponse> successConsumer, Consumer<Throwable> errorConsumer, Set<Engine> triedMembers) {
+        Optional<Engine> member = selectMember(query.getType(), triedMembers);
+        if (member.isEmpty()) {
+            errorConsumer.accept(new BackendException.NoAvailableEngineConnectionException("Unable to find a connection to any engine in \"" + getName() + "\""));
+            return;
+        }
+
+        triedMembers.add(member.get());
+        member.get().enqueueQuery(query, successConsumer, (t) -> {
+            if (isConnectionFailure(t)) {
+                enqueueOnMember(query, successConsumer, errorConsumer, triedMembers);
+            } else {
+                errorConsumer.accept(t);
+            }
+        });
+    }
+
+    /**
+     * Selects the member with the lowest expected completion time among those not tried yet.
+     * Unhealthy members are only selected if no healthy member remains.
+     *
+     * @param type     the type of the query
+     * @param excluded the members that must not be selected
+     * @return the selected member, or empty if all members are excluded
+     */
+    Optional<Engine> selectMember(QueryType type, Set<Engine> excluded) {
+        Comparator<Engine> byHealth = Comparator.comparing(engine -> !engine.isHealthy());
+
+        return members.stream()
+                .filter(engine -> !excluded.contains(engine))
+                .min(byHealth.thenComparingDouble(engine -> getExpectedCompletionMillis(engine, type)));
+    }
+
+    /**
+     * Estimates the time until a new query would be answered by an engine.
+     * The requests that are queued or running on the engine are spread over its instances,
+     * and each takes the median of the recent latencies of the query type.
+     *
+     * @param engine the engine to estimate for
+     * @param type   the type of the query
+     * @return the expected completion time in milliseconds
+     */
+    static double getExpectedCompletionMillis(Engine engine, QueryType type) {
+        long latency = engine.getMetrics().getLatencyPercentileMillis(type, 0.5);
+        if (latency < 0) latency = defaultExpectedLatency;
+
+        int busyConnections = engine.getNumberOfStartedConnections() - engine.getNumberOfAvailableConnections();
+        int requestsAhead = engine.getQueueSize() + busyConnections;
+
+        return (1 + (double) requestsAhead / Math.max(1, engine.getNumberOfInstances())) * latency;
+    }
+
+    /**
+     * Whether an error means that the engine could not be reached, such that another engine might still answer the query
+     *
+     * @param t the error of the query
+     * @return true if the query was not answered because the engine could not be reached
+     */
+    static boolean isConnectionFailure(Throwable t) {
+        return t instanceof BackendException.NoAvailableEngineConnectionException
+                || Status.fromThrowable(t).getCode() == Status.Code.UNAVAILABLE;
+    }
+
+    @Override
+    protected void cancelPendingQuery(Query query) {
+        members.forEach(engine -> engine.cancelQuery(query));
+    }
+
+    @Override
+    public void cancelAllQueries() {
+        super.cancelAllQueries();
+        members.forEach(Engine::cancelAllQueries);
+    }
+
+    /**
+     * The delay is based on the slowest member that has answered queries of the type
+     *
+     * @param type the type of the query
+     * @return the delay in milliseconds
+     */
+    @Override
+    public long getHedgingDelay(QueryType type) {
+        return members.stream().mapToLong(engine -> engine.getHedgingDelay(type)).max().orElse(super.getHedgingDelay(type));
+    }
+
+    /**
+     * The members are warmed up on their own, as they are also in the list of engines
+     */
+    @Override
+    public void warmUp() {
+    }
+
+    @Override
+    public void reapIdleConnections() {
+    }
+
+    /**
+     * The health of a group is that of its members, which are checked on their own
+     */
+    @Override
+    public void checkHealth() {
+    }
+
+    /**
+     * The connections belong to the members, which are closed on their own
+     */
+    @Override
+    protected void closeConnections() {
+    }
+}
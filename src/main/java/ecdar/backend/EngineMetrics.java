@@ -0,0 +1,259 @@
+package ecdar.backend;
+
+import ecdar.abstractions.QueryType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the requests handled by an {@link Engine}.
+ * All methods are thread safe, as requests are dispatched and completed on different threads.
+ */
+public class EngineMetrics {
+    private static final int LATENCY_WINDOW_SIZE = 100;
+    private static final int SAMPLE_HISTORY_SIZE = 600; // Ten minutes when sampled every second
+
+    private final AtomicLong dispatchedRequests = new AtomicLong();
+    private final AtomicLong completedRequests = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong deadlineFailures = new AtomicLong();
+    private final Map<QueryType, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final Map<QueryType, LatencyHistogram> latencyHistograms = new ConcurrentHashMap<>();
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram();
+    private final Deque<Sample> samples = new ArrayDeque<>();
+    private volatile long firstDispatchNanos = -1;
+
+    /**
+     * Registers that a request has been handed to an engine connection.
+     *
+     * @param queueWaitNanos the time the request spent in the queue before being dispatched
+     */
+    void recordDispatch(final long queueWaitNanos) {
+        if (firstDispatchNanos < 0) firstDispatchNanos = System.nanoTime();
+
+        dispatchedRequests.incrementAndGet();
+        totalQueueWaitNanos.addAndGet(queueWaitNanos);
+        maxQueueWaitNanos.accumulateAndGet(queueWaitNanos, Math::max);
+        queueWaitHistogram.record(TimeUnit.NANOSECONDS.toMillis(queueWaitNanos));
+    }
+
+    /**
+     * Registers that a dispatched request has received its final response or error.
+     */
+    void recordCompletion() {
+        completedRequests.incrementAndGet();
+    }
+
+    /**
+     * Registers the time it took the engine to answer a query.
+     *
+     * @param type          the type of the query
+     * @param latencyMillis the time from sending the query to receiving the response
+     */
+    void recordLatency(final QueryType type, final long latencyMillis) {
+        latencies.computeIfAbsent(type, t -> new LatencyWindow(LATENCY_WINDOW_SIZE)).record(latencyMillis);
+        latencyHistograms.computeIfAbsent(type, t -> new LatencyHistogram()).record(latencyMillis);
+    }
+
+    /**
+     * Registers that a query was not answered before its deadline.
+     * The deadline is registered as the latency used for percentiles, such that the deadline grows for queries of that type,
+     * but it is not counted in the latency histogram, as the actual latency is unknown.
+     *
+     * @param type           the type of the query
+     * @param deadlineMillis the deadline that was exceeded
+     */
+    void recordDeadlineExceeded(final QueryType type, final long deadlineMillis) {
+        deadlineFailures.incrementAndGet();
+        latencies.computeIfAbsent(type, t -> new LatencyWindow(LATENCY_WINDOW_SIZE)).record(deadlineMillis);
+    }
+
+    /**
+     * Registers the current state of the queue and the connections of the engine.
+     * Only the most recent samples are kept.
+     *
+     * @param queueDepth           the number of requests waiting for a connection
+     * @param startedConnections   the number of started connections
+     * @param availableConnections the number of started connections that are waiting for a request
+     */
+    void recordSample(final int queueDepth, final int startedConnections, final int availableConnections) {
+        synchronized (samples) {
+            samples.addLast(new Sample(System.currentTimeMillis(), queueDepth, startedConnections, availableConnections));
+            if (samples.size() > SAMPLE_HISTORY_SIZE) samples.removeFirst();
+        }
+    }
+
+    /**
+     * Registers that a request has been scheduled for another attempt.
+     */
+    void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    public long getDispatchedRequests() {
+        return dispatchedRequests.get();
+    }
+
+    public long getCompletedRequests() {
+        return completedRequests.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getDeadlineFailures() {
+        return deadlineFailures.get();
+    }
+
+    /**
+     * Gets the histogram of the latencies of the answered queries of a type.
+     *
+     * @param type the type of the queries
+     * @return the histogram, or null if no query of the type has been answered
+     */
+    public LatencyHistogram getLatencyHistogram(final QueryType type) {
+        return latencyHistograms.get(type);
+    }
+
+    /**
+     * Gets the histogram of the time that dispatched requests have waited in the queue.
+     *
+     * @return the queue wait histogram
+     */
+    public LatencyHistogram getQueueWaitHistogram() {
+        return queueWaitHistogram;
+    }
+
+    /**
+     * Gets the recent samples of the queue depth and the connections, oldest first.
+     *
+     * @return a copy of the samples
+     */
+    public List<Sample> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * Gets a percentile of the recent latencies of queries of a type.
+     *
+     * @param type       the type of the queries
+     * @param percentile the percentile between 0 and 1
+     * @return the percentile in milliseconds, or -1 if no query of the type has been answered
+     */
+    public long getLatencyPercentileMillis(final QueryType type, final double percentile) {
+        final LatencyWindow window = latencies.get(type);
+        return window == null ? -1 : window.getPercentile(percentile);
+    }
+
+    /**
+     * Gets the average time that dispatched requests have waited in the queue.
+     *
+     * @return the average queue wait time in milliseconds
+     */
+    public double getAverageQueueWaitMillis() {
+        final long dispatched = dispatchedRequests.get();
+        if (dispatched == 0) return 0;
+
+        return (double) TimeUnit.NANOSECONDS.toMicros(totalQueueWaitNanos.get()) / dispatched / 1000;
+    }
+
+    /**
+     * Gets the longest time that a dispatched request has waited in the queue.
+     *
+     * @return the maximum queue wait time in milliseconds
+     */
+    public long getMaxQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos.get());
+    }
+
+    /**
+     * Gets the number of completed requests per second since the first request was dispatched.
+     *
+     * @return the throughput in requests per second
+     */
+    public double getThroughput() {
+        final long start = firstDispatchNanos;
+        if (start < 0) return 0;
+
+        final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        return elapsedSeconds > 0 ? completedRequests.get() / elapsedSeconds : 0;
+    }
+
+    /**
+     * Resets all statistics.
+     */
+    public void reset() {
+        dispatchedRequests.set(0);
+        completedRequests.set(0);
+        totalQueueWaitNanos.set(0);
+        maxQueueWaitNanos.set(0);
+        retries.set(0);
+        deadlineFailures.set(0);
+        latencies.clear();
+        latencyHistograms.clear();
+        queueWaitHistogram.reset();
+        synchronized (samples) {
+            samples.clear();
+        }
+        firstDispatchNanos = -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d dispatched, %d completed, %d retries, %d deadline failures, %.2f requests/s, average queue wait %.1f ms (max %d ms)",
+                getDispatchedRequests(), getCompletedRequests(), getRetries(), getDeadlineFailures(), getThroughput(), getAverageQueueWaitMillis(), getMaxQueueWaitMillis());
+    }
+
+    /**
+     * The state of the queue and the connections of an engine at a point in time.
+     */
+    public static class Sample {
+        private final long timeMillis;
+        private final int queueDepth;
+        private final int startedConnections;
+        private final int availableConnections;
+
+        Sample(final long timeMillis, final int queueDepth, final int startedConnections, final int availableConnections) {
+            this.timeMillis = timeMillis;
+            this.queueDepth = queueDepth;
+            this.startedConnections = startedConnections;
+            this.availableConnections = availableConnections;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getStartedConnections() {
+            return startedConnections;
+        }
+
+        public int getAvailableConnections() {
+            return availableConnections;
+        }
+
+        /**
+         * Gets the number of connections that were executing a request.
+         *
+         * @return the number of active connections
+         */
+        public int getActiveConnections() {
+            return startedConnections - availableConnections;
+        }
+    }
+}
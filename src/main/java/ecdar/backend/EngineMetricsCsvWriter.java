@@ -0,0 +1,101 @@
+package ecdar.backend;
+
+import ecdar.abstractions.QueryType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the metrics of engines as CSV with one value per row.
+ * Each row has the columns "engine", "metric", "label", and "value",
+ * where the label is the bucket of a histogram or the time in milliseconds of a sample, and empty for totals.
+ * This keeps every metric in a single table that can be filtered and pivoted in a spreadsheet.
+ */
+public class EngineMetricsCsvWriter {
+    private static final String HEADER = "engine,metric,label,value";
+
+    private final Writer writer;
+
+    private EngineMetricsCsvWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the current metrics of the engines.
+     *
+     * @param engines the engines to write the metrics of
+     * @param writer  the writer to write the CSV to, it is not closed
+     * @throws IOException if the CSV could not be written
+     */
+    public static void write(final List<Engine> engines, final Writer writer) throws IOException {
+        final EngineMetricsCsvWriter csv = new EngineMetricsCsvWriter(writer);
+        writer.write(HEADER + "\n");
+
+        for (final Engine engine : engines) {
+            csv.writeEngine(engine);
+        }
+
+        writer.flush();
+    }
+
+    private void writeEngine(final Engine engine) throws IOException {
+        final String name = engine.getName();
+        final EngineMetrics metrics = engine.getMetrics();
+
+        writeRow(name, "dispatched_requests", "", metrics.getDispatchedRequests());
+        writeRow(name, "completed_requests", "", metrics.getCompletedRequests());
+        writeRow(name, "retries", "", metrics.getRetries());
+        writeRow(name, "deadline_failures", "", metrics.getDeadlineFailures());
+        writeRow(name, "throughput_per_second", "", metrics.getThroughput());
+        writeRow(name, "average_queue_wait_ms", "", metrics.getAverageQueueWaitMillis());
+        writeRow(name, "max_queue_wait_ms", "", metrics.getMaxQueueWaitMillis());
+        writeRow(name, "queue_depth", "", engine.getQueueSize());
+        writeRow(name, "started_connections", "", engine.getNumberOfStartedConnections());
+        writeRow(name, "available_connections", "", engine.getNumberOfAvailableConnections());
+
+        writeHistogram(name, "queue_wait_histogram", metrics.getQueueWaitHistogram());
+        for (final QueryType type : QueryType.values()) {
+            final LatencyHistogram histogram = metrics.getLatencyHistogram(type);
+            if (histogram != null) writeHistogram(name, "latency_histogram_" + type.name(), histogram);
+        }
+
+        for (final EngineMetrics.Sample sample : metrics.getSamples()) {
+            final String time = String.valueOf(sample.getTimeMillis());
+            writeRow(name, "sampled_queue_depth", time, sample.getQueueDepth());
+            writeRow(name, "sampled_active_connections", time, sample.getActiveConnections());
+            writeRow(name, "sampled_available_connections", time, sample.getAvailableConnections());
+        }
+    }
+
+    private void writeHistogram(final String engine, final String metric, final LatencyHistogram histogram) throws IOException {
+        final String[] labels = LatencyHistogram.getBucketLabels();
+        final long[] counts = histogram.getCounts();
+
+        for (int i = 0; i < counts.length; i++) {
+            writeRow(engine, metric, labels[i], counts[i]);
+        }
+    }
+
+    private void writeRow(final String engine, final String metric, final String label, final long value) throws IOException {
+        writer.write(escape(engine) + "," + metric + "," + escape(label) + "," + value + "\n");
+    }
+
+    private void writeRow(final String engine, final String metric, final String label, final double value) throws IOException {
+        writer.write(escape(engine) + "," + metric + "," + escape(label) + "," + String.format(Locale.ROOT, "%.3f", value) + "\n");
+    }
+
+    /**
+     * Quotes a value if it contains characters that have a meaning in CSV.
+     *
+     * @param value the value to escape
+     * @return the escaped value
+     */
+    static String escape(final String value) {
+        if (value == null) return "";
+        if (!value.contains(",") && !value.contains("\"") && !value.contains("\n")) return value;
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,119 @@
+package ecdar.backend;
+
+import ecdar.Ecdar;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Watches the processes of a local engine.
+ * The output of each process is drained into ring buffers, such that the process never blocks on a full pipe.
+ * When a process exits without its connection being closed, the connection is discarded
+ * and a new instance is started after a delay that doubles with each crash in a row.
+ * The new instance receives all components before its first query, as it has no component revisions.
+ */
+public class EngineProcessSupervisor {
+    private static final int OUTPUT_BUFFER_SIZE = 200;
+    private static final long initialRestartDelay = 500;
+    private static final long maxRestartDelay = 30000;
+    /**
+     * Processes that ran for this long before crashing reset the restart delay
+     */
+    private static final long stableUptime = 60000;
+
+    private final Engine engine;
+    private final LineRingBuffer outputLines = new LineRingBuffer(OUTPUT_BUFFER_SIZE);
+    private final LineRingBuffer errorLines = new LineRingBuffer(OUTPUT_BUFFER_SIZE);
+    private final AtomicInteger crashCount = new AtomicInteger(0);
+    private int consecutiveCrashes = 0;
+
+    EngineProcessSupervisor(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Starts watching the process of a connection
+     *
+     * @param connection the connection to the process
+     * @param process    the process to watch
+     */
+    void supervise(EngineConnection connection, Process process) {
+        final long startedAt = System.currentTimeMillis();
+
+        drain(process.getInputStream(), outputLines, "output");
+        drain(process.getErrorStream(), errorLines, "error output");
+
+        process.onExit().thenAccept(p -> {
+            // The process was stopped on purpose
+            if (connection.isClosed()) return;
+
+            handleCrash(connection, p.exitValue(), System.currentTimeMillis() - startedAt);
+        });
+    }
+
+    private void drain(InputStream stream, LineRingBuffer buffer, String streamName) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    buffer.add(line);
+                }
+            } catch (IOException e) {
+                // The stream is closed together with the process, so there is nothing left to drain
+            }
+        }, "Drain " + streamName + " of " + engine.getName());
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void handleCrash(EngineConnection connection, int exitValue, long uptime) {
+        crashCount.incrementAndGet();
+        errorLines.add("Process at " + connection.getAddress() + " exited with code " + exitValue);
+
+        long delay;
+        synchronized (this) {
+            consecutiveCrashes = uptime >= stableUptime ? 1 : consecutiveCrashes + 1;
+            delay = Math.min(maxRestartDelay, initialRestartDelay << Math.min(consecutiveCrashes - 1, 16));
+        }
+
+        Ecdar.showToast("An instance of \"" + engine.getName() + "\" stopped unexpectedly and is restarted");
+        engine.discardConnection(connection);
+        BackendHelper.getScheduler().schedule(engine::restartConnection, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the number of times a process of the engine has stopped unexpectedly
+     *
+     * @return the number of crashes
+     */
+    public int getCrashCount() {
+        return crashCount.get();
+    }
+
+    /**
+     * Get the most recent lines that the processes of the engine have written to their error output
+     *
+     * @param count the maximum number of lines
+     * @return the lines, oldest first
+     */
+    public List<String> getLastErrorLines(int count) {
+        return errorLines.getLastLines(count);
+    }
+
+    /**
+     * Get the most recent lines that the processes of the engine have written to their standard output
+     *
+     * @param count the maximum number of lines
+     * @return the lines, oldest first
+     */
+    public List<String> getLastOutputLines(int count) {
+        return outputLines.getLastLines(count);
+    }
+}
@@ -1,16 +1,94 @@
 package ecdar.backend;
 
+import io.grpc.Context;
+
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 public class GrpcRequest {
+    private static final AtomicLong nextSequenceNumber = new AtomicLong();
+
     private final Consumer<EngineConnection> request;
+    private final Consumer<Throwable> errorConsumer;
+    private final long enqueuedAt = System.nanoTime();
+    private final long sequenceNumber = nextSequenceNumber.getAndIncrement();
+    /**
+     * The context that the gRPC calls of this request are started in. Cancelling it cancels the calls on the engine
+     */
+    private final Context.CancellableContext context = Context.current().withCancellation();
+    private volatile QueryPriority priority;
     public int tries = 0;
 
-    public GrpcRequest(Consumer<EngineConnection> request) {
+    public GrpcRequest(Consumer<EngineConnection> request, Consumer<Throwable> errorConsumer, QueryPriority priority) {
         this.request = request;
+        this.errorConsumer = errorConsumer;
+        this.priority = priority;
+    }
+
+    public GrpcRequest(Consumer<EngineConnection> request, Consumer<Throwable> errorConsumer) {
+        this(request, errorConsumer, QueryPriority.INTERACTIVE);
+    }
+
+    public GrpcRequest(Consumer<EngineConnection> request) {
+        this(request, (t) -> {});
     }
 
     public void execute(EngineConnection engineConnection) {
-        this.request.accept(engineConnection);
+        context.run(() -> this.request.accept(engineConnection));
+    }
+
+    /**
+     * Cancels the gRPC calls made by this request, including any calls started after this.
+     * The calls fail with status CANCELLED, which releases the connection they are running on.
+     *
+     * @param cause the reason for the cancellation
+     */
+    public void cancel(Throwable cause) {
+        context.cancel(cause);
+    }
+
+    public boolean isCancelled() {
+        return context.isCancelled();
+    }
+
+    /**
+     * Signals that the request could not be executed
+     *
+     * @param t the reason for the failure
+     */
+    public void fail(Throwable t) {
+        this.errorConsumer.accept(t);
+    }
+
+    /**
+     * Get the time that this request has been waiting since it was created
+     *
+     * @return the wait time in nanoseconds
+     */
+    public long getWaitTimeNanos() {
+        return System.nanoTime() - enqueuedAt;
+    }
+
+    public QueryPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Set the priority of the request.
+     * NOTE: The request must not be in a priority queue while its priority is changed
+     *
+     * @param priority the new priority
+     */
+    void setPriority(QueryPriority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Get the number of the request, which orders requests with the same priority by creation
+     *
+     * @return the sequence number
+     */
+    public long getSequenceNumber() {
+        return sequenceNumber;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,124 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.QueryProtos;
+import ecdar.abstractions.Query;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A query that is sent to a second engine if the first engine is slower than usual.
+ * The first response is passed on and the query is cancelled on the other engine.
+ * If an engine cannot be reached, the query is sent to the other engine, and the error is only passed on when both have failed.
+ * Any other error, e.g. from a malformed query, would happen on both engines, so it is passed on right away.
+ */
+class HedgedQuery {
+    private final Query query;
+    private final Engine primary;
+    private final Engine secondary;
+    private final Consumer<QueryProtos.QueryResponse> successConsumer;
+    private final Consumer<Throwable> errorConsumer;
+
+    private ScheduledFuture<?> hedgeTask;
+    private int outstandingCalls = 0;
+    private boolean done = false;
+
+    HedgedQuery(Query query, Engine primary, Engine secondary, Consumer<QueryProtos.QueryResponse> successConsumer, Consumer<Throwable> errorConsumer) {
+        this.query = query;
+        this.primary = primary;
+        this.secondary = secondary;
+        this.successConsumer = successConsumer;
+        this.errorConsumer = errorConsumer;
+    }
+
+    /**
+     * Selects the engine to hedge a query on, which is the healthy engine with the lowest expected completion time.
+     * Engine groups and members of the primary engine are not considered.
+     *
+     * @param primary the engine that the query is sent to first
+     * @param query   the query to hedge
+     * @return the engine to hedge on, or empty if there is no other engine
+     */
+    static Optional<Engine> selectSecondary(Engine primary, Query query) {
+        return BackendHelper.getEngines().stream()
+                .filter(engine -> engine != primary && !(engine instanceof EngineGroup) && engine.isHealthy())
+                .filter(engine -> !(primary instanceof EngineGroup) || !((EngineGroup) primary).getMembers().contains(engine))
+                .min(Comparator.comparingDouble(engine -> EngineGroup.getExpectedCompletionMillis(engine, query.getType())));
+    }
+
+    /**
+     * Sends the query to the primary engine and schedules sending it to the secondary engine
+     */
+    synchronized void start() {
+        // The hedge is scheduled first, as a cached response is passed on before the request returns
+        long delay = primary.getHedgingDelay(query.getType());
+        hedgeTask = BackendHelper.getScheduler().schedule(this::hedge, delay, TimeUnit.MILLISECONDS);
+
+        outstandingCalls++;
+        primary.enqueueRequest(query, response -> onResponse(secondary, response), t -> onError(secondary, t));
+    }
+
+    private synchronized void hedge() {
+        if (done) return;
+
+        outstandingCalls++;
+        secondary.enqueueRequest(query, response -> onResponse(primary, response), t -> onError(primary, t));
+    }
+
+    /**
+     * Cancels the query on both engines
+     */
+    void cancel() {
+        synchronized (this) {
+            done = true;
+            if (hedgeTask != null) hedgeTask.cancel(false);
+        }
+
+        primary.cancelPendingQuery(query);
+        secondary.cancelPendingQuery(query);
+    }
+
+    private void onResponse(Engine other, QueryProtos.QueryResponse response) {
+        synchronized (this) {
+            if (done) return;
+
+            done = true;
+            hedgeTask.cancel(false);
+        }
+
+        primary.removeHedgedQuery(query);
+        other.cancelPendingQuery(query);
+        successConsumer.accept(response);
+    }
+
+    private void onError(Engine other, Throwable t) {
+        final boolean isConnectionFailure = EngineGroup.isConnectionFailure(t);
+
+        synchronized (this) {
+            if (done) return;
+            outstandingCalls--;
+
+            if (isConnectionFailure) {
+                // Wait for the other engine, as it might still succeed
+                if (outstandingCalls > 0) return;
+
+                // Send the query to the secondary engine right away, instead of failing
+                if (hedgeTask.cancel(false)) {
+                    outstandingCalls++;
+                    secondary.enqueueRequest(query, response -> onResponse(primary, response), error -> onError(primary, error));
+                    return;
+                }
+            }
+
+            done = true;
+            hedgeTask.cancel(false);
+        }
+
+        primary.removeHedgedQuery(query);
+        if (!isConnectionFailure) other.cancelPendingQuery(query);
+        errorConsumer.accept(t);
+    }
+}
@@ -0,0 +1,66 @@
+package ecdar.backend;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations with fixed, roughly exponential buckets.
+ * Unlike {@link LatencyWindow}, all durations since the last reset are counted,
+ * such that the distribution of a whole session can be inspected and exported.
+ */
+public class LatencyHistogram {
+    /**
+     * The inclusive upper bounds of the buckets in milliseconds.
+     * The last bucket has no upper bound and counts everything above the last bound.
+     */
+    private static final long[] BUCKET_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+    void record(final long millis) {
+        counts.incrementAndGet(getBucket(millis));
+    }
+
+    private static int getBucket(final long millis) {
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            if (millis <= BUCKET_BOUNDS[i]) return i;
+        }
+
+        return BUCKET_BOUNDS.length;
+    }
+
+    /**
+     * Gets the number of recorded durations in each bucket.
+     *
+     * @return the counts, ordered as the labels of {@link #getBucketLabels()}
+     */
+    public long[] getCounts() {
+        final long[] result = new long[counts.length()];
+        for (int i = 0; i < result.length; i++) result[i] = counts.get(i);
+
+        return result;
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (final long count : getCounts()) total += count;
+
+        return total;
+    }
+
+    /**
+     * Gets a label for each bucket, e.g. "<= 10 ms" and "> 60000 ms".
+     *
+     * @return the labels of the buckets
+     */
+    public static String[] getBucketLabels() {
+        final String[] labels = new String[BUCKET_BOUNDS.length + 1];
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) labels[i] = "<= " + BUCKET_BOUNDS[i] + " ms";
+        labels[BUCKET_BOUNDS.length] = "> " + BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1] + " ms";
+
+        return labels;
+    }
+
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+    }
+}
@@ -0,0 +1,46 @@
+package ecdar.backend;
+
+import java.util.Arrays;
+
+/**
+ * The most recent latencies of a kind of request, used to compute latency percentiles.
+ * Old latencies are overwritten, such that the percentiles follow changes to the model and the engine.
+ */
+class LatencyWindow {
+    private final long[] latencies;
+    private int next = 0;
+    private int size = 0;
+
+    /**
+     * @param capacity the number of latencies to keep
+     */
+    LatencyWindow(final int capacity) {
+        this.latencies = new long[capacity];
+    }
+
+    synchronized void record(final long latencyMillis) {
+        latencies[next] = latencyMillis;
+        next = (next + 1) % latencies.length;
+        size = Math.min(size + 1, latencies.length);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies using the nearest rank.
+     *
+     * @param percentile the percentile between 0 and 1
+     * @return the percentile in milliseconds, or -1 if nothing has been recorded
+     */
+    synchronized long getPercentile(final double percentile) {
+        if (size == 0) return -1;
+
+        final long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+
+        final int rank = (int) Math.ceil(percentile * size);
+        return sorted[Math.max(0, Math.min(size - 1, rank - 1))];
+    }
+}
@@ -0,0 +1,48 @@
+package ecdar.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded buffer of text lines, where the oldest line is overwritten when the buffer is full.
+ * Used to keep the most recent output of engine processes without letting it grow.
+ */
+public class LineRingBuffer {
+    private final String[] lines;
+    private int next = 0;
+    private int size = 0;
+
+    /**
+     * @param capacity the number of lines to keep
+     */
+    public LineRingBuffer(final int capacity) {
+        this.lines = new String[capacity];
+    }
+
+    public synchronized void add(final String line) {
+        lines[next] = line;
+        next = (next + 1) % lines.length;
+        size = Math.min(size + 1, lines.length);
+    }
+
+    /**
+     * Gets the most recent lines, oldest first.
+     *
+     * @param count the maximum number of lines to get
+     * @return the lines
+     */
+    public synchronized List<String> getLastLines(final int count) {
+        final int n = Math.min(count, size);
+        final List<String> result = new ArrayList<>(n);
+
+        for (int i = n; i > 0; i--) {
+            result.add(lines[Math.floorMod(next - i, lines.length)]);
+        }
+
+        return result;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
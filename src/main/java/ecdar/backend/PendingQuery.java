@@ -0,0 +1,108 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.QueryProtos;
+import ecdar.abstractions.Query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A query that is queued or running on an engine, together with the consumers waiting for its result.
+ * Identical queries enqueued while this one is pending subscribe to it instead of being sent again,
+ * so every subscriber receives the same response.
+ */
+class PendingQuery {
+    private final Map<Query, Consumer<QueryProtos.QueryResponse>> successConsumers = new LinkedHashMap<>();
+    private final Map<Query, Consumer<Throwable>> errorConsumers = new LinkedHashMap<>();
+    private GrpcRequest request;
+    private boolean done = false;
+
+    synchronized GrpcRequest getRequest() {
+        return request;
+    }
+
+    synchronized void setRequest(final GrpcRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Adds consumers for the result of this query.
+     *
+     * @param query           the query that the consumers belong to
+     * @param successConsumer consumer for the returned QueryResponse
+     * @param errorConsumer   consumer for any throwable that might result from the execution
+     * @return false if the query has already finished, in which case the consumers are not added
+     */
+    synchronized boolean subscribe(final Query query, final Consumer<QueryProtos.QueryResponse> successConsumer, final Consumer<Throwable> errorConsumer) {
+        if (done) return false;
+
+        successConsumers.put(query, successConsumer);
+        errorConsumers.put(query, errorConsumer);
+        return true;
+    }
+
+    /**
+     * Removes the consumers of a query, such that it is no longer notified about the result.
+     * If no subscribers remain, this is marked as done, as the result is no longer needed.
+     *
+     * @param query the query to remove the consumers of
+     * @return true if the query was subscribed and no subscribers remain
+     */
+    synchronized boolean unsubscribe(final Query query) {
+        if (done || successConsumers.remove(query) == null) return false;
+
+        errorConsumers.remove(query);
+        if (!successConsumers.isEmpty()) return false;
+
+        done = true;
+        return true;
+    }
+
+    /**
+     * Checks whether a query is waiting for the result of this.
+     *
+     * @param query the query to check for
+     * @return whether the query is subscribed
+     */
+    synchronized boolean isSubscribed(final Query query) {
+        return !done && successConsumers.containsKey(query);
+    }
+
+    /**
+     * Passes the response to every subscriber.
+     *
+     * @param response the response of the engine
+     */
+    void complete(final QueryProtos.QueryResponse response) {
+        for (final Consumer<QueryProtos.QueryResponse> consumer : finish(successConsumers)) {
+            consumer.accept(response);
+        }
+    }
+
+    /**
+     * Passes the error to every subscriber.
+     *
+     * @param t the error of the execution
+     */
+    void fail(final Throwable t) {
+        for (final Consumer<Throwable> consumer : finish(errorConsumers)) {
+            consumer.accept(t);
+        }
+    }
+
+    /**
+     * Marks this as done, such that no more consumers can subscribe, and gets a copy of the given consumers.
+     * The consumers are called outside the lock, as they might take a while.
+     *
+     * @return the consumers, or an empty list if this was already done
+     */
+    private synchronized <T> List<T> finish(final Map<Query, T> consumers) {
+        if (done) return new ArrayList<>();
+
+        done = true;
+        return new ArrayList<>(consumers.values());
+    }
+}
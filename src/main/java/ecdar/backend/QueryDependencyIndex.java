@@ -0,0 +1,94 @@
+package ecdar.backend;
+
+import ecdar.abstractions.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the components and systems that each query depends on.
+ * Queries reference components and systems by name in their text, e.g. "(A || B) &lt;= Spec".
+ * The names in the text of each query are parsed once and kept until the text changes,
+ * while systems are resolved to their components on each lookup, as systems change independently of the queries.
+ */
+public class QueryDependencyIndex {
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    private final Map<String, Set<String>> identifiersByQueryText = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the queries that depend on at least one of the given components,
+     * either directly or through a system that contains an instance of the component.
+     *
+     * @param componentNames the names of the components
+     * @param project        the project containing the queries, components, and systems
+     * @return the dependent queries in the order of the project
+     */
+    public List<Query> getDependentQueries(final Set<String> componentNames, final Project project) {
+        // Systems that contain one of the components are dependencies as well
+        final Set<String> dependencies = new HashSet<>(componentNames);
+        for (final EcdarSystem system : new ArrayList<>(project.getSystems())) {
+            for (final ComponentInstance instance : system.getComponentInstances()) {
+                if (instance.getComponent() != null && componentNames.contains(instance.getComponent().getName())) {
+                    dependencies.add(system.getName());
+                    break;
+                }
+            }
+        }
+
+        final List<Query> dependentQueries = new ArrayList<>();
+        final Set<String> queryTexts = new HashSet<>();
+        for (final Query query : new ArrayList<>(project.getQueries())) {
+            queryTexts.add(query.getQuery());
+            if (!Collections.disjoint(getIdentifiers(query.getQuery()), dependencies)) dependentQueries.add(query);
+        }
+
+        // Forget the texts of queries that have been edited or removed
+        identifiersByQueryText.keySet().retainAll(queryTexts);
+
+        return dependentQueries;
+    }
+
+    private Set<String> getIdentifiers(final String queryText) {
+        return identifiersByQueryText.computeIfAbsent(queryText, QueryDependencyIndex::parseIdentifiers);
+    }
+
+    private static Set<String> parseIdentifiers(final String queryText) {
+        final Set<String> identifiers = new HashSet<>();
+        final Matcher matcher = IDENTIFIER.matcher(queryText);
+        while (matcher.find()) identifiers.add(matcher.group());
+
+        return identifiers;
+    }
+
+    /**
+     * Gets the components that are referenced by name in a query,
+     * either directly or through a system.
+     * The components are ordered by name.
+     *
+     * @param queryText the text of the query
+     * @param project   the project containing the components
+     * @return the referenced components
+     */
+    public static Collection<Component> getReferencedComponents(final String queryText, final Project project) {
+        final Set<String> identifiers = parseIdentifiers(queryText);
+
+        final Map<String, Component> components = new TreeMap<>();
+        for (final Component component : project.getComponents()) {
+            if (identifiers.contains(component.getName())) components.put(component.getName(), component);
+        }
+
+        for (final EcdarSystem system : project.getSystems()) {
+            if (!identifiers.contains(system.getName())) continue;
+
+            for (final ComponentInstance instance : system.getComponentInstances()) {
+                final Component component = instance.getComponent();
+                if (component != null) components.put(component.getName(), component);
+            }
+        }
+
+        return components.values();
+    }
+}
@@ -0,0 +1,19 @@
+package ecdar.backend;
+
+/**
+ * The priority classes of queries sent to an engine, from highest to lowest priority.
+ */
+public enum QueryPriority {
+    /**
+     * Queries explicitly started by the user, for instance from the query pane
+     */
+    INTERACTIVE,
+    /**
+     * Queries marked as periodic that are re-run when the model changes
+     */
+    PERIODIC,
+    /**
+     * Queries generated by the background analysis, such as location reachability
+     */
+    BACKGROUND
+}
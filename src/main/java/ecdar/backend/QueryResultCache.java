@@ -0,0 +1,188 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.QueryProtos;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.protobuf.InvalidProtocolBufferException;
+import ecdar.Ecdar;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Project;
+import ecdar.abstractions.Query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of query responses, addressed by the content of the query.
+ * The key of a query consists of its type, its text, the engine executing it,
+ * and the content of the components that it touches.
+ * Hence, a cached response is only returned if nothing relevant to the query has changed.
+ * The least recently used response is evicted when the cache is full.
+ */
+public class QueryResultCache {
+    public static final String FILE_NAME = "QueryResultCache.json";
+    private static final String KEY = "key";
+    private static final String RESPONSE = "response";
+
+    private final int maxSize;
+    private final LinkedHashMap<String, QueryProtos.QueryResponse> responses;
+    private final AtomicInteger hits = new AtomicInteger(0);
+    private final AtomicInteger misses = new AtomicInteger(0);
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxSize the maximum number of responses to keep
+     */
+    public QueryResultCache(final int maxSize) {
+        this.maxSize = maxSize;
+
+        // Access ordered, such that the eldest entry is the least recently used one
+        this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, QueryProtos.QueryResponse> eldest) {
+                return size() > QueryResultCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached response for a key and counts the lookup as a hit or a miss.
+     *
+     * @param key the key of the query, see {@link #getKey(Query, Engine)}
+     * @return the cached response, or empty if none is cached
+     */
+    public synchronized Optional<QueryProtos.QueryResponse> get(final String key) {
+        final QueryProtos.QueryResponse response = responses.get(key);
+
+        if (response == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        return Optional.ofNullable(response);
+    }
+
+    /**
+     * Stores a response, evicting the least recently used response if the cache is full.
+     *
+     * @param key      the key of the query, see {@link #getKey(Query, Engine)}
+     * @param response the response to store
+     */
+    public synchronized void put(final String key, final QueryProtos.QueryResponse response) {
+        responses.put(key, response);
+    }
+
+    public synchronized int size() {
+        return responses.size();
+    }
+
+    /**
+     * Removes all cached responses and resets the counters.
+     */
+    public synchronized void clear() {
+        responses.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Gets the number of lookups that found a cached response.
+     * Lookups happen on the engine threads, so this is not observable by the GUI.
+     *
+     * @return the number of hits since the cache was last cleared
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that did not find a cached response.
+     *
+     * @return the number of misses since the cache was last cleared
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Stores the cached responses in a file.
+     *
+     * @param file the file to store in
+     * @throws IOException if an IO error occurs
+     */
+    public synchronized void save(final File file) throws IOException {
+        final JsonArray entries = new JsonArray();
+
+        responses.forEach((key, response) -> {
+            final JsonObject entry = new JsonObject();
+            entry.addProperty(KEY, key);
+            entry.addProperty(RESPONSE, Base64.getEncoder().encodeToString(response.toByteArray()));
+            entries.add(entry);
+        });
+
+        Files.writeString(file.toPath(), entries.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds the responses stored in a file to this cache.
+     * Entries that cannot be parsed are skipped.
+     *
+     * @param file the file to load from
+     * @throws IOException if an IO error occurs
+     */
+    public synchronized void load(final File file) throws IOException {
+        if (!file.exists()) return;
+
+        final String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+
+        for (final JsonElement element : JsonParser.parseString(content).getAsJsonArray()) {
+            final JsonObject entry = element.getAsJsonObject();
+
+            try {
+                final byte[] bytes = Base64.getDecoder().decode(entry.getAsJsonPrimitive(RESPONSE).getAsString());
+                responses.put(entry.getAsJsonPrimitive(KEY).getAsString(), QueryProtos.QueryResponse.parseFrom(bytes));
+            } catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Gets the key addressing the response of a query executed by an engine.
+     * The key changes whenever a component referenced by the query,
+     * a component in a system referenced by the query, or the global declarations change.
+     *
+     * @param query  the query
+     * @param engine the engine executing the query
+     * @return the key
+     */
+    public static String getKey(final Query query, final Engine engine) {
+        final Hasher hasher = Hashing.sha256().newHasher()
+                .putString(query.getType().getQueryName(), StandardCharsets.UTF_8)
+                .putChar('\0')
+                .putString(query.getQuery(), StandardCharsets.UTF_8)
+                .putChar('\0')
+                .putString(engine.getName(), StandardCharsets.UTF_8);
+
+        final Project project = Ecdar.getProject();
+        hasher.putChar('\0').putString(project.getGlobalDeclarations().getDeclarationsText(), StandardCharsets.UTF_8);
+
+        for (final Component component : QueryDependencyIndex.getReferencedComponents(query.getQuery(), project)) {
+            hasher.putChar('\0')
+                    .putString(component.getName(), StandardCharsets.UTF_8)
+                    .putString(component.getContentHash(), StandardCharsets.UTF_8);
+        }
+
+        return hasher.hash().toString();
+    }
+}
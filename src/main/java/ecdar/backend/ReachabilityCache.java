@@ -0,0 +1,126 @@
+package ecdar.backend;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import ecdar.abstractions.Location;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Cache of the reachability of locations, addressed by the fingerprint of the component they belong to.
+ * The fingerprint covers everything that the reachability of the locations depends on,
+ * so the cached reachability is valid whenever a component returns to an earlier state, e.g. through undo.
+ * The least recently used fingerprint is evicted when the cache is full.
+ * The cache can be stored with the project, such that a reopened project is not checked again.
+ */
+public class ReachabilityCache {
+    public static final String FILE_NAME = "ReachabilityCache.json";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String LOCATIONS = "locations";
+
+    private final int maxSize;
+    private final LinkedHashMap<String, Map<String, Location.Reachability>> results;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxSize the maximum number of fingerprints to keep results for
+     */
+    public ReachabilityCache(final int maxSize) {
+        this.maxSize = maxSize;
+
+        // Access ordered, such that the eldest entry is the least recently used one
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Map<String, Location.Reachability>> eldest) {
+                return size() > ReachabilityCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached reachability of a location.
+     *
+     * @param fingerprint the fingerprint of the component
+     * @param locationId  the id of the location
+     * @return the reachability, or empty if none is cached
+     */
+    public synchronized Optional<Location.Reachability> get(final String fingerprint, final String locationId) {
+        final Map<String, Location.Reachability> locations = results.get(fingerprint);
+        return locations == null ? Optional.empty() : Optional.ofNullable(locations.get(locationId));
+    }
+
+    /**
+     * Stores the reachability of a location.
+     *
+     * @param fingerprint  the fingerprint of the component
+     * @param locationId   the id of the location
+     * @param reachability the reachability found by the engine
+     */
+    public synchronized void put(final String fingerprint, final String locationId, final Location.Reachability reachability) {
+        results.computeIfAbsent(fingerprint, f -> new HashMap<>()).put(locationId, reachability);
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * Stores the cached reachability in a file.
+     * The fingerprints are stored from the least to the most recently used, such that loading them keeps their order.
+     *
+     * @param file the file to store in
+     * @throws IOException if an IO error occurs
+     */
+    public synchronized void save(final File file) throws IOException {
+        final JsonArray entries = new JsonArray();
+
+        results.forEach((fingerprint, locations) -> {
+            final JsonObject locationsObject = new JsonObject();
+            locations.forEach((locationId, reachability) -> locationsObject.addProperty(locationId, reachability.name()));
+
+            final JsonObject entry = new JsonObject();
+            entry.addProperty(FINGERPRINT, fingerprint);
+            entry.add(LOCATIONS, locationsObject);
+            entries.add(entry);
+        });
+
+        Files.writeString(file.toPath(), entries.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds the reachability stored in a file to this cache.
+     * Locations with an unknown reachability are skipped.
+     *
+     * @param file the file to load from
+     * @throws IOException if an IO error occurs
+     */
+    public synchronized void load(final File file) throws IOException {
+        if (!file.exists()) return;
+
+        final String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+
+        for (final JsonElement element : JsonParser.parseString(content).getAsJsonArray()) {
+            final JsonObject entry = element.getAsJsonObject();
+            final String fingerprint = entry.getAsJsonPrimitive(FINGERPRINT).getAsString();
+
+            for (final Map.Entry<String, JsonElement> location : entry.getAsJsonObject(LOCATIONS).entrySet()) {
+                try {
+                    put(fingerprint, location.getKey(), Location.Reachability.valueOf(location.getValue().getAsString()));
+                } catch (IllegalArgumentException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -2,11 +2,11 @@ package ecdar.controllers;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
-import ecdar.Debug;
 import ecdar.Ecdar;
 import ecdar.abstractions.*;
 import ecdar.backend.BackendHelper;
 import ecdar.backend.Engine;
+import ecdar.backend.EngineGroup;
 import ecdar.code_analysis.CodeAnalysis;
 import ecdar.mutation.MutationTestPlanPresentation;
 import ecdar.mutation.models.MutationTestPlan;
@@ -21,11 +21,12 @@ import ecdar.utility.keyboard.KeyboardTracker;
 import ecdar.utility.keyboard.NudgeDirection;
 import ecdar.utility.keyboard.Nudgeable;
 import com.jfoenix.controls.*;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.binding.When;
 import javafx.beans.property.*;
-import javafx.collections.ListChangeListener;
-import javafx.collections.ObservableList;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -41,6 +42,7 @@ import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
+import javafx.util.Duration;
 import javafx.util.Pair;
 
 import javax.imageio.ImageIO;
@@ -49,15 +51,11 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 public class EcdarController implements Initializable {
     // Reachability analysis
     public static boolean reachabilityServiceEnabled = false;
-    private static long reachabilityTime = Long.MAX_VALUE;
-    private static ExecutorService reachabilityService;
 
     private static final ObjectProperty<EdgeStatus> globalEdgeStatus = new SimpleObjectProperty<>(EdgeStatus.INPUT);
 
@@ -127,11 +125,14 @@ public class EcdarController implements Initializable {
     public Menu menuBarFileRecentProjects;
     public MenuItem menuBarFileSave;
     public MenuItem menuBarFileSaveAs;
+    public MenuItem menuBarFileImportPacked;
+    public MenuItem menuBarFileExportPacked;
     public MenuItem menuBarFileNewMutationTestObject;
     public MenuItem menuBarFileExportAsPng;
     public MenuItem menuBarFileExportAsPngNoBorder;
     public MenuItem menuBarOptionsCache;
     public MenuItem menuBarOptionsBackgroundQueries;
+    public MenuItem menuBarOptionsPersistQueryResults;
     public MenuItem menuBarOptionsEngineOptions;
     public MenuItem menuBarHelpHelp;
     public MenuItem menuBarHelpAbout;
@@ -141,6 +142,8 @@ public class EcdarController implements Initializable {
     public HBox statusBar;
     public Label statusLabel;
     public Label queryLabel;
+    public Label queryCacheLabel;
+    public Label engineHealthLabel;
     public HBox queryStatusContainer;
 
     public StackPane queryDialogContainer;
@@ -160,7 +163,7 @@ public class EcdarController implements Initializable {
     public static void runReachabilityAnalysis() {
         if (!reachabilityServiceEnabled) return;
 
-        reachabilityTime = System.currentTimeMillis() + 500;
+        BackendHelper.getBackgroundQueryScheduler().modelChanged();
     }
 
     private static final ObjectProperty<CanvasPresentation> activeCanvasPresentation = new SimpleObjectProperty<>(new CanvasPresentation());
@@ -217,7 +220,6 @@ public class EcdarController implements Initializable {
         initializeStatusBar();
         initializeMenuBar();
         intitializeTemporaryComponentWatermark();
-        startBackgroundQueriesThread(); // Will terminate immediately if background queries are turned off
 
         bottomFillerElement.heightProperty().bind(messageTabPane.maxHeightProperty());
         messageTabPane.getController().setRunnableForOpeningAndClosingMessageTabPane(this::changeInsetsOfFileAndQueryPanes);
@@ -392,74 +394,6 @@ public class EcdarController implements Initializable {
         Platform.runLater(() -> ((JFXRippler) switchEdgeStatusButton.lookup(".jfx-rippler")).setRipplerRecenter(true));
     }
 
-    private void startBackgroundQueriesThread() {
-        new Thread(() -> {
-            while (Ecdar.shouldRunBackgroundQueries.get()) {
-                // Wait for the reachability (the last time we changed the model) becomes smaller than the current time
-                while (reachabilityTime > System.currentTimeMillis()) {
-                    try {
-                        Thread.sleep(2000);
-                        Debug.backgroundThreads.removeIf(thread -> !thread.isAlive());
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
-
-                // We are now performing the analysis. Do not do another analysis before another change is introduced
-                reachabilityTime = Long.MAX_VALUE;
-
-                // Cancel any ongoing analysis
-                if (reachabilityService != null) {
-                    reachabilityService.shutdownNow();
-                }
-
-                // Start new analysis
-                reachabilityService = Executors.newFixedThreadPool(10);
-
-                while (Debug.backgroundThreads.size() > 0) {
-                    final Thread thread = Debug.backgroundThreads.get(0);
-                    thread.interrupt();
-                    Debug.removeThread(thread);
-                }
-
-                // Stop thread if background queries have been toggled off
-                if (!Ecdar.shouldRunBackgroundQueries.get()) return;
-
-                Ecdar.getProject().getQueries().forEach(query -> {
-                    if (query.isPeriodic()) query.execute();
-                });
-
-                // List of threads to start
-                List<Thread> threads = new ArrayList<>();
-
-                // Submit all background reachability queries
-                Ecdar.getProject().getComponents().forEach(component -> {
-                    // Check if we should consider this component
-                    if (!component.isIncludeInPeriodicCheck()) {
-                        component.getLocations().forEach(location -> location.setReachability(Location.Reachability.EXCLUDED));
-                    } else {
-                        component.getLocations().forEach(location -> {
-                            final String locationReachableQuery = BackendHelper.getLocationReachableQuery(location, component);
-
-                            Query reachabilityQuery = new Query(locationReachableQuery, "", QueryState.UNKNOWN);
-                            reachabilityQuery.setType(QueryType.REACHABILITY);
-
-                            reachabilityQuery.execute();
-
-                            final Thread verifyThread = new Thread(reachabilityQuery::execute);
-
-                            verifyThread.setName(locationReachableQuery + " (" + verifyThread.getName() + ")");
-                            Debug.addThread(verifyThread);
-                            threads.add(verifyThread);
-                        });
-                    }
-                });
-
-                threads.forEach((verifyThread) -> reachabilityService.submit(verifyThread::start));
-            }
-        }).start();
-    }
-
     private void initializeStatusBar() {
         statusBar.setBackground(new Background(new BackgroundFill(
                 Color.GREY_BLUE.getColor(Color.Intensity.I800),
@@ -474,19 +408,36 @@ public class EcdarController implements Initializable {
         queryLabel.setTextFill(Color.GREY_BLUE.getColor(Color.Intensity.I50));
         queryLabel.setOpacity(0.5);
 
-        Debug.backgroundThreads.addListener(new ListChangeListener<Thread>() {
-            @Override
-            public void onChanged(final Change<? extends Thread> c) {
-                while (c.next()) {
-                    Platform.runLater(() -> {
-                        if (Debug.backgroundThreads.size() == 0) {
-                            queryStatusContainer.setOpacity(0);
-                        } else {
-                            queryStatusContainer.setOpacity(1);
-                            queryLabel.setText(Debug.backgroundThreads.size() + " background queries running");
-                        }
-                    });
-                }
+        queryCacheLabel.setTextFill(Color.GREY_BLUE.getColor(Color.Intensity.I50));
+        queryCacheLabel.setOpacity(0.5);
+
+        // The cache is counted on the engine threads, so the label polls it from the FX thread
+        final Runnable updateQueryCacheLabel = () -> queryCacheLabel.setText(
+                "Query cache: " + BackendHelper.getQueryResultCache().getHits() + " hits, "
+                        + BackendHelper.getQueryResultCache().getMisses() + " misses");
+        updateQueryCacheLabel.run();
+        final Timeline queryCacheTimeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> updateQueryCacheLabel.run()));
+        queryCacheTimeline.setCycleCount(Animation.INDEFINITE);
+        queryCacheTimeline.play();
+
+        engineHealthLabel.setTextFill(Color.GREY_BLUE.getColor(Color.Intensity.I50));
+        engineHealthLabel.setOpacity(0.5);
+        BackendHelper.addEngineHealthListener(() -> {
+            final String engineHealth = BackendHelper.getEngines().stream()
+                    .filter(engine -> !(engine instanceof EngineGroup))
+                    .map(engine -> String.format("%s: %s (%.0f%% errors)", engine.getName(),
+                            engine.getCircuitBreaker().getState().getDescription(),
+                            engine.getCircuitBreaker().getErrorRate() * 100))
+                    .collect(Collectors.joining(", "));
+            Platform.runLater(() -> engineHealthLabel.setText(engineHealth));
+        });
+
+        BackendHelper.getBackgroundQueryScheduler().runningQueriesProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue.intValue() == 0) {
+                queryStatusContainer.setOpacity(0);
+            } else {
+                queryStatusContainer.setOpacity(1);
+                queryLabel.setText(newValue + " background queries running");
             }
         });
     }
@@ -504,6 +455,7 @@ public class EcdarController implements Initializable {
         menuBarFileSaveAs.setAccelerator(new KeyCodeCombination(KeyCode.S, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN));
         menuBarFileSaveAs.setOnAction(event -> saveAs());
 
+        initializePackedProjectMenuItems();
         initializeNewMutationTestObjectMenuItem();
         initializeFileExportAsPng();
         initializeEditMenu();
@@ -571,6 +523,7 @@ public class EcdarController implements Initializable {
         });
 
         menuBarOptionsEngineOptions.setOnAction(event -> {
+            engineOptionsDialog.getController().updateEngineStatus();
             engineOptionsDialogContainer.setVisible(true);
             engineOptionsDialog.show(engineOptionsDialogContainer);
             engineOptionsDialog.setMouseTransparent(false);
@@ -580,13 +533,23 @@ public class EcdarController implements Initializable {
             final BooleanProperty shouldRunBackgroundQueries = Ecdar.toggleRunBackgroundQueries();
             Ecdar.preferences.putBoolean("run_background_queries", shouldRunBackgroundQueries.get());
             if (shouldRunBackgroundQueries.get()) {
-                // If background queries have been turned back on, start a new thread
-                startBackgroundQueriesThread();
+                // The model might have changed while background queries were turned off
+                BackendHelper.getBackgroundQueryScheduler().checkAllComponents();
+            } else {
+                BackendHelper.getBackgroundQueryScheduler().stop();
             }
         });
 
         Ecdar.shouldRunBackgroundQueries.setValue(Ecdar.preferences.getBoolean("run_background_queries", true));
         menuBarOptionsBackgroundQueries.getGraphic().opacityProperty().bind(new When(Ecdar.shouldRunBackgroundQueries).then(1).otherwise(0));
+
+        menuBarOptionsPersistQueryResults.setOnAction(event -> {
+            final BooleanProperty shouldPersistQueryResults = Ecdar.toggleQueryResultPersistence();
+            Ecdar.preferences.putBoolean("persist_query_results", shouldPersistQueryResults.get());
+        });
+
+        Ecdar.shouldPersistQueryResults.setValue(Ecdar.preferences.getBoolean("persist_query_results", false));
+        menuBarOptionsPersistQueryResults.getGraphic().opacityProperty().bind(new When(Ecdar.shouldPersistQueryResults).then(1).otherwise(0));
     }
 
     private void initializeEditMenu() {
@@ -769,6 +732,63 @@ public class EcdarController implements Initializable {
         menuBarFileRecentProjects.getItems().add(item);
     }
 
+    /**
+     * Initializes the menu items for importing and exporting a project as a single packed file.
+     */
+    private void initializePackedProjectMenuItems() {
+        final FileChooser.ExtensionFilter packedProjectFilter = new FileChooser.ExtensionFilter("Packed Ecdar Project", "*" + PackedProjectFile.FILENAME_EXTENSION);
+
+        menuBarFileImportPacked.setOnAction(event -> {
+            final FileChooser filePicker = new FileChooser();
+            filePicker.setTitle("Import packed project");
+            filePicker.setInitialDirectory(new File(System.getProperty("user.home")));
+            filePicker.getExtensionFilters().add(packedProjectFilter);
+
+            final File file = filePicker.showOpenDialog(root.getScene().getWindow());
+            if (file == null) return;
+
+            try {
+                Ecdar.initializePackedProject(file);
+                Ecdar.isSplitProperty().set(false);
+                UndoRedoStack.clear();
+                addProjectToRecentProjects(Ecdar.projectDirectory.get());
+            } catch (final IOException e) {
+                Ecdar.showToast("Unable to import packed project: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+
+        menuBarFileExportPacked.setOnAction(event -> {
+            final FileChooser filePicker = new FileChooser();
+            filePicker.setTitle("Export packed project");
+
+            // Set initial directory to project directory (if saved) or user.home (otherwise)
+            final String directory = Ecdar.projectDirectory.get();
+            if (directory == null) {
+                filePicker.setInitialDirectory(new File(System.getProperty("user.home")));
+                filePicker.setInitialFileName("New Ecdar Project" + PackedProjectFile.FILENAME_EXTENSION);
+            } else {
+                final File projectDirectory = new File(directory);
+                filePicker.setInitialDirectory(projectDirectory.getParentFile());
+                filePicker.setInitialFileName(projectDirectory.getName() + PackedProjectFile.FILENAME_EXTENSION);
+            }
+            filePicker.getExtensionFilters().add(packedProjectFilter);
+
+            final File file = filePicker.showSaveDialog(root.getScene().getWindow());
+            if (file == null) {
+                Ecdar.showToast("Export was cancelled.");
+                return;
+            }
+
+            try {
+                Ecdar.getProject().serializePacked(file);
+            } catch (final IOException e) {
+                Ecdar.showToast("Could not export project: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
     private static void setProjectDirectory(String path) throws IOException {
         Ecdar.projectDirectory.set(path);
         Ecdar.initializeProjectFolder();
@@ -845,6 +865,7 @@ public class EcdarController implements Initializable {
     private static void save(final File directory) {
         try {
             Ecdar.getProject().serialize(directory);
+            if (Ecdar.shouldPersistQueryResults.get()) BackendHelper.saveQueryResultCache(directory);
         } catch (final IOException e) {
             Ecdar.showToast("Could not save project: " + e.getMessage());
             e.printStackTrace();
@@ -1024,7 +1045,9 @@ public class EcdarController implements Initializable {
         canvasGrid.getRowConstraints().add(row1);
         canvasGrid.getRowConstraints().add(row1);
 
-        ObservableList<ComponentPresentation> components = projectPane.getController().getComponentPresentations();
+        // The presentations of the components are only created for the components shown, as creating them builds the components
+        final List<Component> components = new ArrayList<>(Ecdar.getProject().getComponents());
+        components.addAll(Ecdar.getProject().getTempComponents());
         int currentCompNum = 0, numComponents = components.size();
 
         // Add the canvasPresentation at the top-left
@@ -1039,7 +1062,7 @@ public class EcdarController implements Initializable {
         canvasGrid.add(canvasPresentation, 1, 0);
         // Update the startIndex for the next canvasPresentation
         for (int i = 0; i < numComponents; i++) {
-            if (canvasPresentation.getController().getActiveModelPresentation() != null && canvasPresentation.getController().getActiveModelPresentation().equals(components.get(i))) {
+            if (canvasPresentation.getController().getActiveModelPresentation() != null && canvasPresentation.getController().getActiveModelPresentation().getController().getModel().equals(components.get(i))) {
                 currentCompNum = i + 1;
             }
         }
@@ -1051,7 +1074,7 @@ public class EcdarController implements Initializable {
 
         // Update the startIndex for the next canvasPresentation
         for (int i = 0; i < numComponents; i++)
-            if (canvasPresentation.getController().getActiveModelPresentation() != null && canvasPresentation.getController().getActiveModelPresentation().equals(components.get(i))) {
+            if (canvasPresentation.getController().getActiveModelPresentation() != null && canvasPresentation.getController().getActiveModelPresentation().getController().getModel().equals(components.get(i))) {
                 currentCompNum = i + 1;
             }
 
@@ -1096,14 +1119,15 @@ public class EcdarController implements Initializable {
      * @param startIndex the index to start at when trying to find the component to set as active
      * @return new CanvasShellPresentation
      */
-    private CanvasPresentation initializeNewCanvasPresentationWithActiveComponent(ObservableList<ComponentPresentation> components, int startIndex) {
+    private CanvasPresentation initializeNewCanvasPresentationWithActiveComponent(List<Component> components, int startIndex) {
         CanvasPresentation canvasPresentation = initializeNewCanvasPresentation();
 
         int numComponents = components.size();
         canvasPresentation.getController().setActiveModelPresentation(null);
+        final HighLevelModelPresentation activeModelPresentation = getActiveCanvasPresentation().getController().getActiveModelPresentation();
         for (int currentCompNum = startIndex; currentCompNum < numComponents; currentCompNum++) {
-            if (getActiveCanvasPresentation().getController().getActiveModelPresentation() != components.get(currentCompNum)) {
-                canvasPresentation.getController().setActiveModelPresentation(components.get(currentCompNum));
+            if (activeModelPresentation == null || !activeModelPresentation.getController().getModel().equals(components.get(currentCompNum))) {
+                canvasPresentation.getController().setActiveModelPresentation(Ecdar.getComponentPresentationOfComponent(components.get(currentCompNum)));
                 break;
             }
         }
@@ -4,6 +4,7 @@ import com.jfoenix.controls.JFXCheckBox;
 import com.jfoenix.controls.JFXRippler;
 import com.jfoenix.controls.JFXTextField;
 import ecdar.backend.Engine;
+import ecdar.backend.EngineConnectionStarter;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.fxml.FXML;
@@ -20,6 +21,7 @@ import org.kordamp.ikonli.javafx.FontIcon;
 
 import java.io.File;
 import java.net.URL;
+import java.util.List;
 import java.util.ResourceBundle;
 
 public class EngineInstanceController implements Initializable {
@@ -32,6 +34,7 @@ public class EngineInstanceController implements Initializable {
     public FontIcon expansionIcon;
     public StackPane content;
     public JFXCheckBox isLocal;
+    public JFXCheckBox useUnixSocket;
     public HBox addressSection;
     public HBox pathToEngineSection;
     public JFXRippler pickPathToEngine;
@@ -44,6 +47,11 @@ public class EngineInstanceController implements Initializable {
     public Label portRangeStartIssue;
     public Label portRangeEndIssue;
     public Label portRangeIssue;
+    public Label minWarmInstancesIssue;
+    public Label idleTimeoutIssue;
+    public Label poolSize;
+    public Label processStatus;
+    public Label hedgingPercentileIssue;
 
     /* Input fields */
     public JFXTextField engineName;
@@ -51,10 +59,19 @@ public class EngineInstanceController implements Initializable {
     public JFXTextField pathToEngine;
     public JFXTextField portRangeStart;
     public JFXTextField portRangeEnd;
+    public JFXTextField minWarmInstances;
+    public JFXTextField idleTimeout;
+    public JFXTextField group;
+    public JFXTextField hedgingPercentile;
     public RadioButton defaultEngineRadioButton;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        // Show the defaults for new engines
+        minWarmInstances.setText(String.valueOf(engine.getMinWarmInstances()));
+        idleTimeout.setText(String.valueOf(engine.getIdleTimeout()));
+        hedgingPercentile.setText(String.valueOf(engine.getHedgingPercentile()));
+
         Platform.runLater(() -> {
             this.handleLocalPropertyChanged();
             moveEngineInstanceUpRippler.setCursor(Cursor.HAND);
@@ -92,6 +109,7 @@ public class EngineInstanceController implements Initializable {
 
         this.engineName.setText(instance.getName());
         this.isLocal.setSelected(instance.isLocal());
+        this.useUnixSocket.setSelected(instance.shouldUseUnixSocket());
         this.defaultEngineRadioButton.setSelected(instance.isDefault());
 
         // Check if the path or the address should be used
@@ -103,6 +121,41 @@ public class EngineInstanceController implements Initializable {
 
         this.portRangeStart.setText(String.valueOf(instance.getPortStart()));
         this.portRangeEnd.setText(String.valueOf(instance.getPortEnd()));
+        this.minWarmInstances.setText(String.valueOf(instance.getMinWarmInstances()));
+        this.idleTimeout.setText(String.valueOf(instance.getIdleTimeout()));
+        this.group.setText(instance.getGroup());
+        this.hedgingPercentile.setText(String.valueOf(instance.getHedgingPercentile()));
+
+        updatePoolSize();
+        updateProcessStatus();
+    }
+
+    /**
+     * Shows the current number of started and idle connections of the engine instance.
+     */
+    public void updatePoolSize() {
+        poolSize.setText("Pool: " + engine.getNumberOfStartedConnections() + " started, "
+                + engine.getNumberOfAvailableConnections() + " idle");
+    }
+
+    /**
+     * Shows the number of times the local processes of the engine instance have crashed,
+     * together with the last lines of their error output.
+     */
+    public void updateProcessStatus() {
+        boolean showStatus = engine.isLocal();
+        processStatus.setVisible(showStatus);
+        processStatus.setManaged(showStatus);
+        if (!showStatus) return;
+
+        StringBuilder status = new StringBuilder("Crashes: " + engine.getProcessSupervisor().getCrashCount());
+        List<String> errorLines = engine.getProcessSupervisor().getLastErrorLines(5);
+        if (!errorLines.isEmpty()) {
+            status.append(System.lineSeparator()).append("Last errors:");
+            errorLines.forEach(line -> status.append(System.lineSeparator()).append(line));
+        }
+
+        processStatus.setText(status.toString());
     }
 
     /**
@@ -112,10 +165,15 @@ public class EngineInstanceController implements Initializable {
     public Engine updateEngineInstance() {
         engine.setName(engineName.getText());
         engine.setLocal(isLocal.isSelected());
+        engine.setUseUnixSocket(useUnixSocket.isSelected());
         engine.setDefault(defaultEngineRadioButton.isSelected());
         engine.setEngineLocation(isLocal.isSelected() ? pathToEngine.getText() : address.getText());
         engine.setPortStart(Integer.parseInt(portRangeStart.getText()));
         engine.setPortEnd(Integer.parseInt(portRangeEnd.getText()));
+        engine.setMinWarmInstances(Integer.parseInt(minWarmInstances.getText()));
+        engine.setIdleTimeout(Integer.parseInt(idleTimeout.getText()));
+        engine.setGroup(group.getText().trim());
+        engine.setHedgingPercentile(Integer.parseInt(hedgingPercentile.getText()));
 
         return engine;
     }
@@ -131,9 +189,17 @@ public class EngineInstanceController implements Initializable {
         HBox.setHgrow(pathToEngine, Priority.ALWAYS);
         HBox.setHgrow(portRangeStart, Priority.ALWAYS);
         HBox.setHgrow(portRangeEnd, Priority.ALWAYS);
+        HBox.setHgrow(minWarmInstances, Priority.ALWAYS);
+        HBox.setHgrow(idleTimeout, Priority.ALWAYS);
+        HBox.setHgrow(group, Priority.ALWAYS);
     }
 
     private void handleLocalPropertyChanged() {
+        // Unix domain sockets are only an option for local engines on systems that support them
+        boolean unixSocketAvailable = isLocal.isSelected() && EngineConnectionStarter.isUnixSocketSupported();
+        useUnixSocket.setVisible(unixSocketAvailable);
+        useUnixSocket.setManaged(unixSocketAvailable);
+
         if (isLocal.isSelected()) {
             address.setDisable(true);
             addressSection.setVisible(false);
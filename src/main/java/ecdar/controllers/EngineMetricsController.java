@@ -0,0 +1,133 @@
+package ecdar.controllers;
+
+import ecdar.Ecdar;
+import ecdar.abstractions.QueryType;
+import ecdar.backend.BackendHelper;
+import ecdar.backend.Engine;
+import ecdar.backend.EngineMetrics;
+import ecdar.backend.EngineMetricsCsvWriter;
+import ecdar.backend.LatencyHistogram;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ResourceBundle;
+
+/**
+ * Live view of the metrics of each engine, refreshed every second.
+ */
+public class EngineMetricsController implements Initializable {
+    private static final int HISTOGRAM_BAR_WIDTH = 20;
+
+    public VBox metricsContainer;
+    public Button exportButton;
+
+    private final Timeline refreshTimeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> refresh()));
+
+    @Override
+    public void initialize(final URL location, final ResourceBundle resources) {
+        refresh();
+        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+        refreshTimeline.play();
+    }
+
+    /**
+     * Stops refreshing the metrics, e.g. when the view is closed.
+     */
+    public void stop() {
+        refreshTimeline.stop();
+    }
+
+    private void refresh() {
+        metricsContainer.getChildren().clear();
+
+        for (final Engine engine : new ArrayList<>(BackendHelper.getEngines())) {
+            final Label label = new Label(getEngineSummary(engine));
+            label.setStyle("-fx-font-family: monospace;");
+            metricsContainer.getChildren().add(label);
+        }
+    }
+
+    private static String getEngineSummary(final Engine engine) {
+        final EngineMetrics metrics = engine.getMetrics();
+        final List<EngineMetrics.Sample> samples = metrics.getSamples();
+        final int maxQueueDepth = samples.stream().mapToInt(EngineMetrics.Sample::getQueueDepth).max().orElse(0);
+        final int startedConnections = engine.getNumberOfStartedConnections();
+        final int availableConnections = engine.getNumberOfAvailableConnections();
+
+        final StringBuilder summary = new StringBuilder(engine.getName()).append('\n');
+        summary.append(String.format("Queue depth: %d (max %d over the last %d s)%n", engine.getQueueSize(), maxQueueDepth, samples.size()));
+        summary.append(String.format("Connections: %d active, %d available, %d started of %d%n",
+                startedConnections - availableConnections, availableConnections, startedConnections, engine.getNumberOfInstances()));
+        summary.append(String.format("Requests: %d dispatched, %d completed, %d retries, %d deadline failures%n",
+                metrics.getDispatchedRequests(), metrics.getCompletedRequests(), metrics.getRetries(), metrics.getDeadlineFailures()));
+        summary.append(String.format("Queue wait: average %.1f ms, max %d ms%n", metrics.getAverageQueueWaitMillis(), metrics.getMaxQueueWaitMillis()));
+
+        appendHistogram(summary, "Queue wait", metrics.getQueueWaitHistogram());
+        for (final QueryType type : QueryType.values()) {
+            final LatencyHistogram histogram = metrics.getLatencyHistogram(type);
+            if (histogram != null) appendHistogram(summary, "Latency of " + type.getQueryName(), histogram);
+        }
+
+        return summary.toString().trim();
+    }
+
+    /**
+     * Appends a histogram as a bar per non-empty bucket, scaled to the largest bucket.
+     */
+    private static void appendHistogram(final StringBuilder summary, final String title, final LatencyHistogram histogram) {
+        final long[] counts = histogram.getCounts();
+        final long maxCount = Arrays.stream(counts).max().orElse(0);
+        if (maxCount == 0) return;
+
+        final String[] labels = LatencyHistogram.getBucketLabels();
+        summary.append(title).append(":\n");
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+
+            final int barLength = (int) Math.max(1, counts[i] * HISTOGRAM_BAR_WIDTH / maxCount);
+            summary.append(String.format("  %-12s %-" + HISTOGRAM_BAR_WIDTH + "s %d%n", labels[i], "#".repeat(barLength), counts[i]));
+        }
+    }
+
+    @FXML
+    private void exportButtonClicked() {
+        final FileChooser filePicker = new FileChooser();
+        filePicker.setTitle("Export engine metrics");
+        filePicker.setInitialFileName("engine-metrics.csv");
+
+        // Set initial directory to project directory (if saved) or user.home (otherwise)
+        String directory = Ecdar.projectDirectory.get();
+        if (directory == null) directory = System.getProperty("user.home");
+
+        filePicker.setInitialDirectory(new File(directory));
+        filePicker.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV File", "*.csv"));
+
+        final File file = filePicker.showSaveDialog(metricsContainer.getScene().getWindow());
+        if (file != null) {
+            try (final Writer writer = new FileWriter(file)) {
+                EngineMetricsCsvWriter.write(new ArrayList<>(BackendHelper.getEngines()), writer);
+                Ecdar.showToast("Export succeeded.");
+            } catch (final IOException e) {
+                Ecdar.showToast("Export failed. " + e.getMessage());
+            }
+        } else {
+            Ecdar.showToast("Export was cancelled.");
+        }
+    }
+}
@@ -6,7 +6,6 @@ import com.jfoenix.controls.JFXButton;
 import com.jfoenix.controls.JFXRippler;
 import ecdar.Ecdar;
 import ecdar.backend.Engine;
-import ecdar.backend.BackendException;
 import ecdar.backend.BackendHelper;
 import ecdar.presentations.EnginePresentation;
 import javafx.fxml.Initializable;
@@ -71,13 +70,7 @@ public class EngineOptionsDialogController implements Initializable {
                 return false;
             }
 
-            // Close all engine connections to avoid dangling engine connections when port range is changed
-            try {
-                BackendHelper.clearEngineConnections();
-            } catch (BackendException e) {
-                e.printStackTrace();
-            }
-
+            // The connections of the current engines are closed, to avoid dangling engine connections when port range is changed
             BackendHelper.updateEngineInstances(engines);
 
             JsonArray jsonArray = new JsonArray();
@@ -96,6 +89,18 @@ public class EngineOptionsDialogController implements Initializable {
         }
     }
 
+    /**
+     * Updates the shown connection pool and process status of each engine instance.
+     */
+    public void updateEngineStatus() {
+        for (Node engine : engineInstanceList.getChildren()) {
+            if (engine instanceof EnginePresentation) {
+                ((EnginePresentation) engine).getController().updatePoolSize();
+                ((EnginePresentation) engine).getController().updateProcessStatus();
+            }
+        }
+    }
+
     /**
      * Resets the engines to those packaged with the system.
      */
@@ -293,12 +298,21 @@ public class EngineOptionsDialogController implements Initializable {
      */
     private boolean engineInstanceListIsErrorFree() {
         boolean error = true;
+        Set<String> engineNames = new HashSet<>();
+        for (Node child : engineInstanceList.getChildren()) {
+            if (child instanceof EnginePresentation) {
+                engineNames.add(((EnginePresentation) child).getController().engineName.getText());
+            }
+        }
 
         for (Node child : engineInstanceList.getChildren()) {
             if (child instanceof EnginePresentation) {
                 EngineInstanceController engineInstanceController = ((EnginePresentation) child).getController();
                 error = engineNameIsErrorFree(engineInstanceController) && error;
+                error = groupNameIsErrorFree(engineInstanceController, engineNames) && error;
                 error = portRangeIsErrorFree(engineInstanceController) && error;
+                error = connectionPoolIsErrorFree(engineInstanceController) && error;
+                error = hedgingPercentileIsErrorFree(engineInstanceController) && error;
                 error = engineInstanceLocationIsErrorFree(engineInstanceController) && error;
             }
         }
@@ -319,6 +333,19 @@ public class EngineOptionsDialogController implements Initializable {
         return true;
     }
 
+    private boolean groupNameIsErrorFree(EngineInstanceController engineInstanceController, Set<String> engineNames) {
+        String groupName = engineInstanceController.group.getText().trim();
+
+        // The group is used as an engine, so it must be distinguishable from the engines by name
+        if (!groupName.isEmpty() && engineNames.contains(groupName)) {
+            engineInstanceController.engineNameIssue.setText(ValidationErrorMessages.GROUP_NAME_IS_ENGINE_NAME.toString());
+            engineInstanceController.engineNameIssue.setVisible(true);
+            return false;
+        }
+
+        return true;
+    }
+
     private boolean portRangeIsErrorFree(EngineInstanceController engineInstanceController) {
         boolean errorFree = true;
         int portRangeStart = 0, portRangeEnd = 0;
@@ -373,6 +400,59 @@ public class EngineOptionsDialogController implements Initializable {
         return errorFree;
     }
 
+    private boolean connectionPoolIsErrorFree(EngineInstanceController engineInstanceController) {
+        boolean errorFree = true;
+        engineInstanceController.minWarmInstancesIssue.setVisible(false);
+        engineInstanceController.idleTimeoutIssue.setVisible(false);
+
+        try {
+            int minWarmInstances = Integer.parseInt(engineInstanceController.minWarmInstances.getText());
+            if (minWarmInstances < 0) {
+                engineInstanceController.minWarmInstancesIssue.setText(ValidationErrorMessages.VALUE_NEGATIVE.toString());
+                engineInstanceController.minWarmInstancesIssue.setVisible(true);
+                errorFree = false;
+            }
+        } catch (NumberFormatException numberFormatException) {
+            engineInstanceController.minWarmInstancesIssue.setText(ValidationErrorMessages.VALUE_NOT_INTEGER.toString());
+            engineInstanceController.minWarmInstancesIssue.setVisible(true);
+            errorFree = false;
+        }
+
+        try {
+            int idleTimeout = Integer.parseInt(engineInstanceController.idleTimeout.getText());
+            if (idleTimeout < 0) {
+                engineInstanceController.idleTimeoutIssue.setText(ValidationErrorMessages.VALUE_NEGATIVE.toString());
+                engineInstanceController.idleTimeoutIssue.setVisible(true);
+                errorFree = false;
+            }
+        } catch (NumberFormatException numberFormatException) {
+            engineInstanceController.idleTimeoutIssue.setText(ValidationErrorMessages.VALUE_NOT_INTEGER.toString());
+            engineInstanceController.idleTimeoutIssue.setVisible(true);
+            errorFree = false;
+        }
+
+        return errorFree;
+    }
+
+    private boolean hedgingPercentileIsErrorFree(EngineInstanceController engineInstanceController) {
+        engineInstanceController.hedgingPercentileIssue.setVisible(false);
+
+        try {
+            int hedgingPercentile = Integer.parseInt(engineInstanceController.hedgingPercentile.getText());
+            if (hedgingPercentile < 1 || hedgingPercentile > 100) {
+                engineInstanceController.hedgingPercentileIssue.setText(ValidationErrorMessages.PERCENTILE_NOT_WITHIN_ACCEPTABLE_RANGE.toString());
+                engineInstanceController.hedgingPercentileIssue.setVisible(true);
+                return false;
+            }
+        } catch (NumberFormatException numberFormatException) {
+            engineInstanceController.hedgingPercentileIssue.setText(ValidationErrorMessages.VALUE_NOT_INTEGER.toString());
+            engineInstanceController.hedgingPercentileIssue.setVisible(true);
+            return false;
+        }
+
+        return true;
+    }
+
     private boolean engineInstanceLocationIsErrorFree(EngineInstanceController engineInstanceController) {
         boolean errorFree = true;
 
@@ -424,12 +504,30 @@ public class EngineOptionsDialogController implements Initializable {
                 return "The engine name cannot be empty";
             }
         },
+        GROUP_NAME_IS_ENGINE_NAME {
+            @Override
+            public String toString() {
+                return "The group cannot have the same name as an engine";
+            }
+        },
         VALUE_NOT_INTEGER {
             @Override
             public String toString() {
                 return "Value must be integer";
             }
         },
+        VALUE_NEGATIVE {
+            @Override
+            public String toString() {
+                return "Value cannot be negative";
+            }
+        },
+        PERCENTILE_NOT_WITHIN_ACCEPTABLE_RANGE {
+            @Override
+            public String toString() {
+                return "Value must be within range 1 - 100";
+            }
+        },
         PORT_RANGE_MUST_BE_INCREMENTAL {
             @Override
             public String toString() {
@@ -94,10 +94,7 @@ public class MessageCollectionController implements Initializable {
         };
 
         final EventHandler<MouseEvent> onMousePressed = event -> Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(
-                Ecdar.getPresentation().getController().
-                        projectPane.getController().getComponentPresentations().
-                        stream().filter(componentPresentation -> componentPresentation.getController().getComponent().equals(component))
-                        .findFirst().orElse(null));
+                Ecdar.getComponentPresentationOfComponent(component));
 
         headline.setOnMouseEntered(onMouseEntered);
         headline.setOnMouseExited(onMouseExited);
@@ -3,6 +3,7 @@ package ecdar.controllers;
 import com.jfoenix.controls.JFXTextField;
 import ecdar.Ecdar;
 import ecdar.abstractions.Component;
+import ecdar.abstractions.Declarations;
 import ecdar.abstractions.EcdarSystem;
 import ecdar.abstractions.HighLevelModel;
 import ecdar.abstractions.Project;
@@ -17,9 +18,7 @@ import ecdar.utility.colors.EnabledColor;
 import ecdar.utility.keyboard.Keybind;
 import ecdar.utility.keyboard.KeyboardTracker;
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
@@ -59,8 +58,10 @@ public class ProjectPaneController implements Initializable {
 
 
     public final Project project = new Project();
-    private final HashMap<HighLevelModelPresentation, FilePresentation> modelPresentationMap = new HashMap<>();
-    private final ObservableList<ComponentPresentation> componentPresentations = FXCollections.observableArrayList();
+    private final HashMap<HighLevelModel, FilePresentation> modelFileMap = new HashMap<>();
+    // The presentations of components are only created when they are needed, as creating them builds the components
+    private final HashMap<HighLevelModel, HighLevelModelPresentation> modelPresentationMap = new HashMap<>();
+    private HighLevelModel modelToActivate;
 
     @Override
     public void initialize(final URL location, final ResourceBundle resources) {
@@ -68,7 +69,8 @@ public class ProjectPaneController implements Initializable {
             // Bind global declarations and add mouse event
             final DeclarationsPresentation globalDeclarationsPresentation = new DeclarationsPresentation(project.getGlobalDeclarations());
             final FilePresentation globalDclPresentation = new FilePresentation(project.getGlobalDeclarations());
-            modelPresentationMap.put(globalDeclarationsPresentation, globalDclPresentation);
+            modelFileMap.put(project.getGlobalDeclarations(), globalDclPresentation);
+            modelPresentationMap.put(project.getGlobalDeclarations(), globalDeclarationsPresentation);
             globalDclPresentation.setOnMousePressed(event -> {
                 Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(globalDeclarationsPresentation);
             });
@@ -83,8 +85,8 @@ public class ProjectPaneController implements Initializable {
         resetProject();
 
         Platform.runLater(() -> {
-            final var initializedModelPresentation = modelPresentationMap.keySet().stream().filter(mp -> mp instanceof ComponentPresentation).findFirst().orElse(null);
-            Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(initializedModelPresentation);
+            final var initializedModel = modelFileMap.keySet().stream().filter(model -> model instanceof Component).findFirst().orElse(null);
+            Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(getModelPresentation(initializedModel));
         });
     }
 
@@ -92,7 +94,7 @@ public class ProjectPaneController implements Initializable {
         project.getSystems().addListener((ListChangeListener<EcdarSystem>) change -> {
             while (change.next()) {
                 change.getAddedSubList().forEach(o -> handleAddedModelPresentation(new SystemPresentation(o)));
-                change.getRemoved().forEach(o -> handleRemovedModelPresentation(modelPresentationMap.keySet().stream().filter(modelPresentation -> modelPresentation.getController().getModel().equals(o)).findFirst().orElse(null)));
+                change.getRemoved().forEach(this::handleRemovedModel);
 
                 // Sort the children alphabetically
                 sortPresentations();
@@ -108,8 +110,8 @@ public class ProjectPaneController implements Initializable {
     private ListChangeListener<Component> getComponentListChangeListener() {
         return c -> {
             while (c.next()) {
-                c.getAddedSubList().forEach(o -> handleAddedModelPresentation(new ComponentPresentation(o)));
-                c.getRemoved().forEach(o -> handleRemovedModelPresentation(modelPresentationMap.keySet().stream().filter(modelPresentation -> modelPresentation.getController().getModel().equals(o)).findFirst().orElse(null)));
+                c.getAddedSubList().forEach(this::handleAddedModel);
+                c.getRemoved().forEach(this::handleRemovedModel);
 
                 // Sort the children alphabetically
                 sortPresentations();
@@ -121,7 +123,7 @@ public class ProjectPaneController implements Initializable {
         project.getTestPlans().addListener((ListChangeListener<MutationTestPlan>) change -> {
             while (change.next()) {
                 change.getAddedSubList().forEach(o -> handleAddedModelPresentation(new MutationTestPlanPresentation(o)));
-                change.getRemoved().forEach(o -> handleRemovedModelPresentation(new MutationTestPlanPresentation(o)));
+                change.getRemoved().forEach(this::handleRemovedModel);
 
                 // Sort the children alphabetically
                 sortPresentations();
@@ -131,12 +133,12 @@ public class ProjectPaneController implements Initializable {
 
     private void sortPresentations() {
         Platform.runLater(() -> {
-            final ArrayList<HighLevelModelPresentation> sortedComponentList = new ArrayList<>(modelPresentationMap.keySet());
-            sortedComponentList.sort(Comparator.comparing(o -> o.getController().getModel().getName()));
-            sortedComponentList.forEach(component -> modelPresentationMap.get(component).toFront());
+            final ArrayList<HighLevelModel> sortedModelList = new ArrayList<>(modelFileMap.keySet());
+            sortedModelList.sort(Comparator.comparing(HighLevelModel::getName));
+            sortedModelList.forEach(model -> modelFileMap.get(model).toFront());
 
-            var globalDec = modelPresentationMap.keySet().stream().filter(hp -> hp instanceof DeclarationsPresentation).findFirst().orElse(null);
-            modelPresentationMap.get(globalDec).toBack();
+            var globalDec = modelFileMap.keySet().stream().filter(model -> model instanceof Declarations).findFirst().orElse(null);
+            modelFileMap.get(globalDec).toBack();
         });
     }
 
@@ -317,53 +319,68 @@ public class ProjectPaneController implements Initializable {
                 project.getComponents().remove(newComponent);
             }, "Created new component: " + newComponent.getName(), "add-circle");
 
-            EcdarController.getActiveCanvasPresentation().getController().setActiveModelPresentation(getComponentPresentations().stream().filter(componentPresentation -> componentPresentation.getController().getComponent().equals(newComponent)).findFirst().orElse(null));
+            EcdarController.getActiveCanvasPresentation().getController().setActiveModelPresentation(getComponentPresentation(newComponent));
         });
         KeyboardTracker.registerKeybind(KeyboardTracker.CREATE_COMPONENT, binding);
     }
 
     private void handleAddedModelPresentation(final HighLevelModelPresentation modelPresentation) {
-        final FilePresentation filePresentation = new FilePresentation(modelPresentation.getController().getModel());
+        modelPresentationMap.put(modelPresentation.getController().getModel(), modelPresentation);
+        handleAddedModel(modelPresentation.getController().getModel());
+    }
+
+    private void handleAddedModel(final HighLevelModel model) {
+        final FilePresentation filePresentation = new FilePresentation(model);
         initializeMoreInformationDropDown(filePresentation);
 
-        // Add the file presentation related to the modelPresentation to the project pane
-        if (modelPresentation.getController().getModel().isTemporary()) {
+        // Add the file presentation related to the model to the project pane
+        if (model.isTemporary()) {
             tempFilesList.getChildren().add(filePresentation);
         } else {
             filesList.getChildren().add(filePresentation);
         }
 
-        modelPresentationMap.put(modelPresentation, filePresentation);// ToDo NIELS: Bind these two
-        if (modelPresentation instanceof ComponentPresentation) {
-            componentPresentations.add((ComponentPresentation) modelPresentation);
-        }
+        modelFileMap.put(model, filePresentation);
 
-        // Open the component if the file is pressed
+        // Open the model if the file is pressed
         filePresentation.setOnMousePressed(event -> {
-            final var previouslyActiveFile = modelPresentationMap.get(EcdarController.getActiveCanvasPresentation()
+            final HighLevelModelPresentation previouslyActiveModelPresentation = EcdarController.getActiveCanvasPresentation()
                     .getController()
-                    .getActiveModelPresentation());
-            if (previouslyActiveFile != null) previouslyActiveFile.getController().setIsActive(false);
+                    .getActiveModelPresentation();
+            if (previouslyActiveModelPresentation != null) {
+                final var previouslyActiveFile = modelFileMap.get(previouslyActiveModelPresentation.getController().getModel());
+                if (previouslyActiveFile != null) previouslyActiveFile.getController().setIsActive(false);
+            }
 
-            Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(modelPresentation);
+            Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(getModelPresentation(model));
             Platform.runLater(() -> {
                 filePresentation.getController().setIsActive(true);
             });
         });
 
-        modelPresentation.getController().getModel().nameProperty().addListener(obs -> sortPresentations());
+        model.nameProperty().addListener(obs -> sortPresentations());
         filePresentation.getController().setIsActive(true);
-        Platform.runLater(() -> Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(modelPresentation));
+
+        // Only the model added last is opened, such that opening a project does not build every component
+        if (modelToActivate == null) {
+            Platform.runLater(() -> {
+                final HighLevelModelPresentation modelPresentation = getModelPresentation(modelToActivate);
+                modelToActivate = null;
+                if (modelPresentation != null) Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(modelPresentation);
+            });
+        }
+        modelToActivate = model;
     }
 
-    private void handleRemovedModelPresentation(final HighLevelModelPresentation modelPresentation) {
-        // If we remove the modelPresentation active on the canvas
-        if (EcdarController.getActiveCanvasPresentation().getController().getActiveModelPresentation() == modelPresentation) {
+    private void handleRemovedModel(final HighLevelModel model) {
+        // If we remove the model active on the canvas
+        final HighLevelModelPresentation activeModelPresentation = EcdarController.getActiveCanvasPresentation().getController().getActiveModelPresentation();
+        if (activeModelPresentation != null && activeModelPresentation.getController().getModel() == model) {
             if (project.getComponents().size() > 0) {
-                // Find the first available component and show it instead of the removed one
-                final HighLevelModelPresentation newActiveModelPresentation = modelPresentationMap.keySet().iterator().next();
-                Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(newActiveModelPresentation);
-                modelPresentationMap.get(newActiveModelPresentation).getController().setIsActive(true);
+                // Find the first available model and show it instead of the removed one
+                final HighLevelModel newActiveModel = modelFileMap.keySet().stream().filter(m -> m != model).findFirst().orElse(null);
+                Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(getModelPresentation(newActiveModel));
+                if (newActiveModel != null) modelFileMap.get(newActiveModel).getController().setIsActive(true);
             } else {
                 // Show no components (since there are none in the project)
                 Ecdar.getPresentation().getController().setActiveModelPresentationForActiveCanvas(null);
@@ -371,13 +388,27 @@ public class ProjectPaneController implements Initializable {
         }
 
         // Remove the file presentation related to the model from the project pane
-        if (modelPresentation.getController().getModel().isTemporary()) {
-            tempFilesList.getChildren().removeIf(n -> n == modelPresentationMap.get(modelPresentation));
+        if (model.isTemporary()) {
+            tempFilesList.getChildren().removeIf(n -> n == modelFileMap.get(model));
         } else {
-            filesList.getChildren().removeIf(n -> n == modelPresentationMap.get(modelPresentation));
+            filesList.getChildren().removeIf(n -> n == modelFileMap.get(model));
         }
 
-        modelPresentationMap.remove(modelPresentation);
+        modelFileMap.remove(model);
+        modelPresentationMap.remove(model);
+    }
+
+    /**
+     * Gets the presentation of a model in the project.
+     * The presentation of a component is created the first time it is needed, e.g. when the component is opened.
+     *
+     * @param model the model
+     * @return the presentation, or null if the model is not part of the project
+     */
+    private HighLevelModelPresentation getModelPresentation(final HighLevelModel model) {
+        if (model == null || !modelFileMap.containsKey(model)) return null;
+
+        return modelPresentationMap.computeIfAbsent(model, component -> new ComponentPresentation((Component) component));
     }
 
     /**
@@ -451,24 +482,31 @@ public class ProjectPaneController implements Initializable {
         return names;
     }
 
-    public ObservableList<ComponentPresentation> getComponentPresentations() {
-        return componentPresentations;
+    /**
+     * Gets the presentation of a component, creating it if the component has not been opened yet.
+     *
+     * @param component the component
+     * @return the presentation, or null if the component is not part of the project
+     */
+    public ComponentPresentation getComponentPresentation(final Component component) {
+        return (ComponentPresentation) getModelPresentation(component);
     }
 
     public void setHighlightedForModelFiles(List<HighLevelModelPresentation> currentlyActiveModelPresentations) {
-        modelPresentationMap.values().forEach(fp -> fp.getController().setIsActive(false));
+        modelFileMap.values().forEach(fp -> fp.getController().setIsActive(false));
 
         for (HighLevelModelPresentation modelPresentation : currentlyActiveModelPresentations) {
-            if (modelPresentationMap.containsKey(modelPresentation)) modelPresentationMap.get(modelPresentation).getController().setIsActive(true);
+            final FilePresentation filePresentation = modelFileMap.get(modelPresentation.getController().getModel());
+            if (filePresentation != null) filePresentation.getController().setIsActive(true);
         }
     }
 
     public void swapHighlightBetweenTwoModelFiles(final HighLevelModelPresentation oldActive, final HighLevelModelPresentation newActive) {
-        if (modelPresentationMap.containsKey(oldActive)) modelPresentationMap.get(oldActive)
+        if (oldActive != null && modelFileMap.containsKey(oldActive.getController().getModel())) modelFileMap.get(oldActive.getController().getModel())
                 .getController()
                 .setIsActive(false);
 
-        if (modelPresentationMap.containsKey(newActive)) modelPresentationMap.get(newActive).getController().setIsActive(true); // newActive is not in the map when opening an existing project
+        if (newActive != null && modelFileMap.containsKey(newActive.getController().getModel())) modelFileMap.get(newActive.getController().getModel()).getController().setIsActive(true); // newActive is not in the map when opening an existing project
     }
 
     /**
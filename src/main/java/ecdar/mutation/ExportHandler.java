@@ -1,6 +1,5 @@
 package ecdar.mutation;
 
-import com.google.gson.GsonBuilder;
 import ecdar.Ecdar;
 import ecdar.abstractions.Component;
 import ecdar.abstractions.Project;
@@ -9,13 +8,13 @@ import ecdar.backend.BackendHelper;
 import ecdar.mutation.models.MutationTestCase;
 import ecdar.mutation.models.MutationTestPlan;
 import ecdar.mutation.operators.MutationOperator;
+import ecdar.utility.serialize.JsonStreams;
 import javafx.application.Platform;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.time.Duration;
@@ -122,10 +121,10 @@ class ExportHandler {
      * @throws URISyntaxException if an error occurs when getting the URL of the root directory
      */
     private static void storeMutantJson(final MutationTestCase testCase) throws URISyntaxException, IOException {
-        final FileWriter writer = new FileWriter(Ecdar.getRootDirectory() + File.separator + "mutants" + File.separator + "json" + File.separator + testCase.getId() + ".json");
+        final File file = new File(Ecdar.getRootDirectory() + File.separator + "mutants" + File.separator + "json" + File.separator + testCase.getId() + ".json");
 
-        new GsonBuilder().setPrettyPrinting().create().toJson(testCase.getMutant().serialize(), writer);
-        writer.close();
+        // Streamed, as a test plan can export a large number of mutants
+        JsonStreams.write(file, testCase.getMutant()::serialize);
     }
 
     /**
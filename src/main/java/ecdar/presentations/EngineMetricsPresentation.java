@@ -0,0 +1,16 @@
+package ecdar.presentations;
+
+import ecdar.controllers.EngineMetricsController;
+import javafx.scene.layout.AnchorPane;
+
+public class EngineMetricsPresentation extends AnchorPane {
+    private final EngineMetricsController controller;
+
+    public EngineMetricsPresentation() {
+        controller = new EcdarFXMLLoader().loadAndGetController("EngineMetricsPresentation.fxml", this);
+    }
+
+    public EngineMetricsController getController() {
+        return controller;
+    }
+}
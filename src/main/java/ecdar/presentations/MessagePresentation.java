@@ -65,15 +65,16 @@ public class MessagePresentation extends HBox {
                             final Component[] openComponent = {null};
 
                             // We are pressing a location, find the location and open the corresponding component
+                            // The nearable exists, so it is not part of a stub whose locations and edges have not been built
                             if (nearable instanceof Location) {
                                 Ecdar.getProject().getComponents().forEach(component -> {
-                                    if (component.getLocations().contains(nearable)) {
+                                    if (component.isGraphLoaded() && component.getLocations().contains(nearable)) {
                                         openComponent[0] = component;
                                     }
                                 });
                             } else if (nearable instanceof Edge) { // We are pressing an edge, find the edge and open the corresponding component
                                 Ecdar.getProject().getComponents().forEach(component -> {
-                                    if (component.getDisplayableEdges().contains(nearable)) {
+                                    if (component.isGraphLoaded() && component.getDisplayableEdges().contains(nearable)) {
                                         openComponent[0] = component;
                                     }
                                 });
@@ -105,6 +105,11 @@ public class QueryPresentation extends HBox {
                 controller.getQuery().setIsPeriodic(!controller.getQuery().isPeriodic());
                 dropDownMenu.hide();
             });
+            dropDownMenu.addToggleableListElement("Hedge Across Engines", controller.getQuery().isHedgedProperty(), event -> {
+                // Toggle the property
+                controller.getQuery().setIsHedged(!controller.getQuery().isHedged());
+                dropDownMenu.hide();
+            });
             dropDownMenu.addSpacerElement();
             dropDownMenu.addClickableListElement("Clear Status", event -> {
                 // Clear the state
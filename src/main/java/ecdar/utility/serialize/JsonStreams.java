@@ -0,0 +1,110 @@
+package ecdar.utility.serialize;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes JSON files as streams, such that the content of a file is never held in memory as a single string.
+ * The files are written in the same pretty printed format as {@code new GsonBuilder().setPrettyPrinting().create().toJson(json)}.
+ */
+public class JsonStreams {
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String TEMP_FILENAME_EXTENSION = ".tmp";
+
+    /**
+     * Content that is written to a JSON stream, e.g. {@link Serializable#serialize(JsonWriter)}.
+     */
+    @FunctionalInterface
+    public interface Content {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    /**
+     * Parses a JSON file directly from the file.
+     *
+     * @param file the file to read
+     * @return the parsed JSON
+     * @throws IOException if the file could not be read or is not valid JSON
+     */
+    public static JsonElement read(final File file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             final Reader reader = Channels.newReader(channel, Charset.defaultCharset())) {
+            // The JSON reader buffers the characters itself
+            return JsonParser.parseReader(new JsonReader(reader));
+        } catch (final JsonParseException e) {
+            throw new IOException("Could not parse " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a JSON file.
+     * The content is written to a temporary file next to the file, which is then moved in place of the file,
+     * such that the file either has its old or its new content, even if writing is interrupted.
+     *
+     * @param file    the file to write
+     * @param content the content to write
+     * @throws IOException if the file could not be written
+     */
+    public static void write(final File file, final Content content) throws IOException {
+        final File tempFile = new File(file.getParentFile(), file.getName() + TEMP_FILENAME_EXTENSION);
+
+        try (final FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             final Writer writer = new BufferedWriter(Channels.newWriter(channel, Charset.defaultCharset()), BUFFER_SIZE)) {
+            final JsonWriter jsonWriter = gson.newJsonWriter(writer);
+            content.write(jsonWriter);
+            jsonWriter.flush();
+        }
+
+        replaceAtomically(tempFile, file);
+    }
+
+    /**
+     * Moves a fully written temporary file in place of a file, atomically if the file system supports it.
+     *
+     * @param tempFile the temporary file with the new content
+     * @param file     the file to replace
+     * @throws IOException if the file could not be moved
+     */
+    public static void replaceAtomically(final File tempFile, final File file) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes a JSON tree to a stream.
+     *
+     * @param json   the JSON to write
+     * @param writer the stream to write to
+     * @throws IOException if the JSON could not be written
+     */
+    public static void write(final JsonElement json, final JsonWriter writer) throws IOException {
+        try {
+            gson.toJson(json, writer);
+        } catch (final JsonIOException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
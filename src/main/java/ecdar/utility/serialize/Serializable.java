@@ -2,6 +2,9 @@ package ecdar.utility.serialize;
 
 
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 public interface Serializable {
 
@@ -9,4 +12,15 @@ public interface Serializable {
 
     void deserialize(JsonObject json);
 
+    /**
+     * Writes the serialized form of this to a JSON stream.
+     * The default implementation writes the tree of {@link #serialize()},
+     * large models can override it to write their content without building the full tree.
+     * @param writer the stream to write to
+     * @throws IOException if an IO error occurs
+     */
+    default void serialize(final JsonWriter writer) throws IOException {
+        JsonStreams.write(serialize(), writer);
+    }
+
 }
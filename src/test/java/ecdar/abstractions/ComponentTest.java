@@ -3,10 +3,15 @@ package ecdar.abstractions;
 import ecdar.Ecdar;
 import ecdar.mutation.ComponentVerificationTransformer;
 import ecdar.utility.colors.EnabledColor;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
 
 import static ecdar.abstractions.Project.LOCATION;
@@ -394,6 +399,90 @@ public class ComponentTest {
         Assertions.assertEquals("sound", vars.get(0));
     }
 
+    @Test
+    public void serializedJsonIsCachedWhileUnchanged() {
+        final Component c = new Component(EnabledColor.getDefault(), "test_comp");
+
+        final String json = c.getSerializedJson();
+
+        Assertions.assertEquals(c.serialize().toString(), json);
+        Assertions.assertSame(json, c.getSerializedJson());
+        Assertions.assertSame(c.getSerializedProto(), c.getSerializedProto());
+    }
+
+    @Test
+    public void serializedJsonIsInvalidatedByLocationChange() {
+        final Component c = new Component(EnabledColor.getDefault(), "test_comp");
+        final String json = c.getSerializedJson();
+
+        c.getLocations().get(0).setX(c.getLocations().get(0).getX() + 10);
+
+        Assertions.assertNotEquals(json, c.getSerializedJson());
+        Assertions.assertEquals(c.serialize().toString(), c.getSerializedJson());
+    }
+
+    @Test
+    public void serializedJsonIsInvalidatedByEdgeChanges() {
+        final Component c = new Component(EnabledColor.getDefault(), "test_comp");
+        final Location location = c.getLocations().get(0);
+        final Edge edge = new Edge(location, EdgeStatus.INPUT);
+        edge.setTargetLocation(location);
+        c.addEdge(edge);
+        final String hashWithEdge = c.getContentHash();
+
+        edge.setGuard("x > 2");
+        Assertions.assertNotEquals(hashWithEdge, c.getContentHash());
+
+        final String hashWithGuard = c.getContentHash();
+        edge.addNail(new Nail(10, 10));
+        Assertions.assertNotEquals(hashWithGuard, c.getContentHash());
+        Assertions.assertEquals(c.serialize().toString(), c.getSerializedJson());
+    }
+
+    @Test
+    public void streamedJsonEqualsPrettyPrintedTree() throws IOException {
+        final Component c = new Component(EnabledColor.getDefault(), "test_comp");
+        final Location location = c.getLocations().get(0);
+        final Edge edge = new Edge(location, EdgeStatus.OUTPUT);
+        edge.setTargetLocation(location);
+        edge.setGuard("x < 2 && y >= 1");
+        edge.addNail(new Nail(10, 10));
+        c.addEdge(edge);
+
+        final StringWriter streamed = new StringWriter();
+        final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        final JsonWriter writer = gson.newJsonWriter(streamed);
+        c.serialize(writer);
+        writer.flush();
+
+        Assertions.assertEquals(gson.toJson(c.serialize()), streamed.toString());
+    }
+
+    @Test
+    public void stubOnlyBuildsItsGraphWhenUsed() {
+        final Component original = new Component(EnabledColor.getDefault(), "test_comp");
+        final Location location = original.getLocations().get(0);
+        final Edge edge = new Edge(location, EdgeStatus.INPUT);
+        edge.setTargetLocation(location);
+        edge.setSync("a");
+        original.addEdge(edge);
+
+        final Component stub = Component.createStub(original.serialize());
+
+        Assertions.assertFalse(stub.isGraphLoaded());
+        Assertions.assertEquals("test_comp", stub.getName());
+        Assertions.assertEquals(List.of("a"), stub.getInputStrings());
+        Assertions.assertEquals(original.getContentHash(), stub.getContentHash());
+        Assertions.assertEquals(original.serialize(), stub.serialize());
+        Assertions.assertFalse(stub.isGraphLoaded());
+
+        Assertions.assertEquals(1, stub.getEdges().size());
+        Assertions.assertTrue(stub.isGraphLoaded());
+        Assertions.assertSame(stub.getLocations().get(0), stub.getEdges().get(0).getSourceLocation());
+        Assertions.assertEquals(original.serialize(), stub.serialize());
+        Assertions.assertEquals(original.getContentHash(), stub.getContentHash());
+    }
+
     private String getUniqueLocationId() {
         counter++;
         return LOCATION + counter;
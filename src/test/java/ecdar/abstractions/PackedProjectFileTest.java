@@ -0,0 +1,111 @@
+package ecdar.abstractions;
+
+import ecdar.Ecdar;
+import ecdar.utility.colors.EnabledColor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+public class PackedProjectFileTest {
+    @BeforeAll
+    static void setup() {
+        Ecdar.setUpForTest();
+    }
+
+    @Test
+    public void testPackedProjectHasTheSameModels(@TempDir Path directory) throws IOException {
+        final Project project = new Project();
+        project.getGlobalDeclarations().setDeclarationsText("broadcast chan a;");
+        project.getComponents().add(new Component(EnabledColor.getDefault(), "A"));
+        project.getComponents().add(new Component(EnabledColor.getDefault(), "B"));
+
+        final File file = directory.resolve("project" + PackedProjectFile.FILENAME_EXTENSION).toFile();
+        project.serializePacked(file);
+
+        final Project unpacked = new Project();
+        unpacked.deserializePacked(file);
+
+        Assertions.assertEquals(project.getGlobalDeclarations().serialize(), unpacked.getGlobalDeclarations().serialize());
+        Assertions.assertEquals(2, unpacked.getComponents().size());
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals(project.getComponents().get(i).serialize(), unpacked.getComponents().get(i).serialize());
+        }
+    }
+
+    @Test
+    public void testEntriesAreDecodedIndividually(@TempDir Path directory) throws IOException {
+        final Project project = new Project();
+        project.getComponents().add(new Component(EnabledColor.getDefault(), "A"));
+        final File file = directory.resolve("project" + PackedProjectFile.FILENAME_EXTENSION).toFile();
+        project.serializePacked(file);
+
+        final PackedProjectFile packedFile = PackedProjectFile.open(file);
+        final PackedProjectFile.Entry component = packedFile.getEntries().stream()
+                .filter(entry -> entry.getKind() == PackedProjectFile.Kind.COMPONENT)
+                .findFirst().orElseThrow();
+
+        Assertions.assertEquals("A", component.getName());
+        Assertions.assertEquals(project.getComponents().get(0).serialize(), packedFile.read(component));
+    }
+
+    @Test
+    public void testComponentsAreDecodedWhenUsed(@TempDir Path directory) throws IOException {
+        final Project project = new Project();
+        final Component component = new Component(EnabledColor.getDefault(), "A");
+        final Location location = component.getLocations().get(0);
+        final Edge edge = new Edge(location, EdgeStatus.OUTPUT);
+        edge.setTargetLocation(location);
+        edge.setSync("b");
+        component.addEdge(edge);
+        project.getComponents().add(component);
+
+        final File file = directory.resolve("project" + PackedProjectFile.FILENAME_EXTENSION).toFile();
+        project.serializePacked(file);
+
+        final Project imported = new Project();
+        imported.deserializePacked(file);
+        final Component stub = imported.findComponent("A");
+
+        Assertions.assertFalse(stub.isGraphLoaded());
+        Assertions.assertEquals(List.of("b"), stub.getOutputStrings());
+        Assertions.assertEquals(component.getContentHash(), stub.getContentHash());
+        Assertions.assertEquals(Set.of(edge.getId()), stub.getEdgeIds());
+        Assertions.assertFalse(stub.isGraphLoaded());
+
+        Assertions.assertEquals(1, stub.getEdges().size());
+        Assertions.assertTrue(stub.isGraphLoaded());
+        Assertions.assertEquals(component.serialize(), stub.serialize());
+    }
+
+    @Test
+    public void testImportedFileCanBeExportedTo(@TempDir Path directory) throws IOException {
+        final Project project = new Project();
+        project.getComponents().add(new Component(EnabledColor.getDefault(), "A"));
+        final File file = directory.resolve("project" + PackedProjectFile.FILENAME_EXTENSION).toFile();
+        project.serializePacked(file);
+
+        final Project imported = new Project();
+        imported.deserializePacked(file);
+        imported.getComponents().add(new Component(EnabledColor.getDefault(), "B"));
+        imported.serializePacked(file);
+
+        Assertions.assertEquals(2, PackedProjectFile.open(file).getEntries().stream()
+                .filter(entry -> entry.getKind() == PackedProjectFile.Kind.COMPONENT).count());
+    }
+
+    @Test
+    public void testOtherFilesAreRejected(@TempDir Path directory) throws IOException {
+        final Path file = directory.resolve("Queries.json");
+        Files.writeString(file, "[]");
+
+        Assertions.assertThrows(IOException.class, () -> PackedProjectFile.open(file.toFile()));
+    }
+}
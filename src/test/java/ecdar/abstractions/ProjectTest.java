@@ -0,0 +1,87 @@
+package ecdar.abstractions;
+
+import ecdar.Ecdar;
+import ecdar.utility.colors.EnabledColor;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ProjectTest {
+    @BeforeAll
+    static void setup() {
+        Ecdar.setUpForTest();
+    }
+
+    @Test
+    public void testUnchangedFilesAreNotWrittenAgain(@TempDir Path directory) throws IOException {
+        final Project project = new Project();
+        project.getComponents().add(new Component(EnabledColor.getDefault(), "A"));
+        project.getComponents().add(new Component(EnabledColor.getDefault(), "B"));
+        project.serialize(directory.toFile());
+
+        // Mark the saved files, such that a rewrite can be detected
+        final Path fileA = directory.resolve("Components").resolve("A.json");
+        final Path fileB = directory.resolve("Components").resolve("B.json");
+        Files.writeString(fileA, "unchanged", Charset.defaultCharset());
+        Files.writeString(fileB, "unchanged", Charset.defaultCharset());
+
+        project.getComponents().get(1).setDescription("Changed");
+        project.serialize(directory.toFile());
+
+        Assertions.assertEquals("unchanged", Files.readString(fileA, Charset.defaultCharset()));
+        final String expected = new GsonBuilder().setPrettyPrinting().create().toJson(project.getComponents().get(1).serialize());
+        Assertions.assertEquals(expected, Files.readString(fileB, Charset.defaultCharset()));
+    }
+
+    @Test
+    public void testFilesOfRemovedAndRenamedModelsAreDeleted(@TempDir Path directory) throws IOException {
+        final Project project = new Project();
+        final Component a = new Component(EnabledColor.getDefault(), "A");
+        final Component b = new Component(EnabledColor.getDefault(), "B");
+        project.getComponents().add(a);
+        project.getComponents().add(b);
+        project.serialize(directory.toFile());
+
+        project.getComponents().remove(a);
+        b.setName("C");
+        project.serialize(directory.toFile());
+
+        final File[] files = directory.resolve("Components").toFile().listFiles();
+        Assertions.assertNotNull(files);
+        Assertions.assertEquals(1, files.length);
+        Assertions.assertEquals("C.json", files[0].getName());
+    }
+
+    @Test
+    public void testLoadedComponentsAreStubsUntilUsed(@TempDir Path directory) throws IOException {
+        final Project project = new Project();
+        project.getComponents().add(new Component(EnabledColor.getDefault(), "A"));
+        project.serialize(directory.toFile());
+
+        final Project loaded = new Project();
+        loaded.deserialize(directory.toFile());
+        final Component component = loaded.findComponent("A");
+
+        // Saving an unchanged project neither builds the stubs nor writes their files
+        final Path file = directory.resolve("Components").resolve("A.json");
+        Files.writeString(file, "unchanged", Charset.defaultCharset());
+        loaded.serialize(directory.toFile());
+
+        Assertions.assertFalse(component.isGraphLoaded());
+        Assertions.assertEquals("unchanged", Files.readString(file, Charset.defaultCharset()));
+
+        Assertions.assertEquals(project.getComponents().get(0).serialize(), component.serialize());
+        Assertions.assertFalse(component.isGraphLoaded());
+
+        Assertions.assertEquals(1, component.getLocations().size());
+        Assertions.assertTrue(component.isGraphLoaded());
+    }
+}
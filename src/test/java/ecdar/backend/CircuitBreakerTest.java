@@ -0,0 +1,52 @@
+package ecdar.backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+    @Test
+    public void testCircuitOpensWhenFailureThresholdIsReached() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, 10000);
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.recordFailure();
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assertions.assertFalse(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void testSuccessResetsConsecutiveFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 10000);
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assertions.assertEquals(2.0 / 3, circuitBreaker.getErrorRate(), 1e-9);
+    }
+
+    @Test
+    public void testSingleProbeIsAllowedWhenHalfOpen() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 0);
+        circuitBreaker.recordFailure();
+
+        // The open duration has passed, so the first request is a probe
+        Assertions.assertTrue(circuitBreaker.allowRequest());
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.recordSuccess();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testFailedProbeOpensCircuitAgain() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 0);
+        circuitBreaker.recordFailure();
+        circuitBreaker.allowRequest();
+        circuitBreaker.recordFailure();
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+}
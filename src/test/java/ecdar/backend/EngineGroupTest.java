@@ -0,0 +1,62 @@
+package ecdar.backend;
+
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import ecdar.abstractions.QueryType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.Mockito.*;
+
+public class EngineGroupTest {
+    private Engine mockEngine(int queueSize) {
+        Engine engine = mock(Engine.class);
+        when(engine.getMetrics()).thenReturn(new EngineMetrics());
+        when(engine.getQueueSize()).thenReturn(queueSize);
+        when(engine.getNumberOfInstances()).thenReturn(1);
+        when(engine.isHealthy()).thenReturn(true);
+        return engine;
+    }
+
+    @Test
+    public void testMemberWithShortestQueueIsSelected() {
+        Engine busy = mockEngine(5);
+        Engine idle = mockEngine(0);
+        EngineGroup group = new EngineGroup("Group", List.of(busy, idle));
+
+        Assertions.assertSame(idle, group.selectMember(QueryType.REFINEMENT, new HashSet<>()).orElseThrow());
+    }
+
+    @Test
+    public void testUnhealthyMemberIsNotSelected() {
+        Engine unhealthy = mockEngine(0);
+        when(unhealthy.isHealthy()).thenReturn(false);
+        Engine busy = mockEngine(5);
+        EngineGroup group = new EngineGroup("Group", List.of(unhealthy, busy));
+
+        Assertions.assertSame(busy, group.selectMember(QueryType.REFINEMENT, new HashSet<>()).orElseThrow());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueryIsSentToNextMemberWhenMemberCannotBeReached() {
+        Engine unreachable = mockEngine(0);
+        Engine fallback = mockEngine(1);
+        doAnswer(invocation -> {
+            ((Consumer<Throwable>) invocation.getArgument(2)).accept(new BackendException.NoAvailableEngineConnectionException("Unreachable"));
+            return null;
+        }).when(unreachable).enqueueQuery(any(), any(), any());
+
+        EngineGroup group = new EngineGroup("Group", List.of(unreachable, fallback));
+        Query query = new Query("(Administration || Machine || Researcher) <= Spec", "", QueryState.UNKNOWN, group);
+        query.setType(QueryType.REFINEMENT);
+        query.execute();
+
+        verify(unreachable, times(1)).enqueueQuery(eq(query), any(), any());
+        verify(fallback, times(1)).enqueueQuery(eq(query), any(), any());
+    }
+}
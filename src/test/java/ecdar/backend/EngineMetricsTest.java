@@ -0,0 +1,57 @@
+package ecdar.backend;
+
+import ecdar.abstractions.QueryType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EngineMetricsTest {
+    @Test
+    public void testLatenciesAreCountedInTheirBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(Long.MAX_VALUE);
+
+        long[] counts = histogram.getCounts();
+        String[] labels = LatencyHistogram.getBucketLabels();
+
+        Assertions.assertEquals(labels.length, counts.length);
+        Assertions.assertEquals(1, counts[0]);
+        Assertions.assertEquals(1, counts[3]); // <= 10 ms
+        Assertions.assertEquals(1, counts[4]); // <= 20 ms
+        Assertions.assertEquals(1, counts[counts.length - 1]);
+        Assertions.assertEquals(4, histogram.getTotalCount());
+    }
+
+    @Test
+    public void testDeadlineFailuresAreNotCountedAsLatencies() {
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.recordLatency(QueryType.REFINEMENT, 50);
+        metrics.recordDeadlineExceeded(QueryType.REFINEMENT, 20000);
+
+        Assertions.assertEquals(1, metrics.getDeadlineFailures());
+        Assertions.assertEquals(1, metrics.getLatencyHistogram(QueryType.REFINEMENT).getTotalCount());
+        // The deadline still counts towards the percentiles that the deadlines are based on
+        Assertions.assertEquals(20000, metrics.getLatencyPercentileMillis(QueryType.REFINEMENT, 1));
+    }
+
+    @Test
+    public void testSamplesTrackActiveConnections() {
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.recordSample(3, 4, 1);
+
+        EngineMetrics.Sample sample = metrics.getSamples().get(0);
+        Assertions.assertEquals(3, sample.getQueueDepth());
+        Assertions.assertEquals(3, sample.getActiveConnections());
+
+        metrics.reset();
+        Assertions.assertTrue(metrics.getSamples().isEmpty());
+    }
+
+    @Test
+    public void testCsvValuesWithSeparatorsAreQuoted() {
+        Assertions.assertEquals("Reveaal", EngineMetricsCsvWriter.escape("Reveaal"));
+        Assertions.assertEquals("\"Engine, \"\"remote\"\"\"", EngineMetricsCsvWriter.escape("Engine, \"remote\""));
+    }
+}
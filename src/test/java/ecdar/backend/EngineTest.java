@@ -0,0 +1,225 @@
+package ecdar.backend;
+
+import ecdar.Ecdar;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import ecdar.abstractions.QueryType;
+import ecdar.utility.colors.EnabledColor;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tests the request queue and connections of {@link Engine} against a {@link MockEngineServer}.
+ */
+public class EngineTest {
+    private static final int firstPort = 25000;
+
+    private MockEngineServer server;
+    private Engine engine;
+
+    @BeforeAll
+    static void setup() {
+        Ecdar.setUpForTest();
+    }
+
+    @BeforeEach
+    void clearCache() {
+        // Identical queries would be answered from the cache instead of the engine
+        BackendHelper.getQueryResultCache().clear();
+    }
+
+    @AfterEach
+    void stopEngine() throws BackendException {
+        if (engine != null) engine.closeConnections();
+        if (server != null) server.shutdown();
+        engine = null;
+        server = null;
+    }
+
+    private void startEngine(int instances, long latencyMillis) throws IOException {
+        server = new MockEngineServer();
+        server.setLatencyMillis(latencyMillis);
+        server.start(instances, firstPort);
+
+        engine = server.createEngine("Test engine");
+        engine.setMinWarmInstances(0);
+        engine.setIdleTimeout(0);
+    }
+
+    private Query createQuery(String text, QueryPriority priority) {
+        Query query = new Query(text, "", QueryState.UNKNOWN, engine);
+        query.setType(QueryType.REFINEMENT);
+        query.setPriority(priority);
+        return query;
+    }
+
+    private static void await(BooleanSupplier condition, long timeoutMillis, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, message);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testIdenticalQueriesAreSentOnce() throws Exception {
+        startEngine(2, 300);
+        CountDownLatch latch = new CountDownLatch(2);
+
+        engine.enqueueQuery(createQuery("Machine <= Spec", QueryPriority.INTERACTIVE), response -> latch.countDown(), Assertions::fail);
+        engine.enqueueQuery(createQuery("Machine <= Spec", QueryPriority.INTERACTIVE), response -> latch.countDown(), Assertions::fail);
+
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS), "The queries were not answered");
+        Assertions.assertEquals(1, server.getReceivedQueries());
+    }
+
+    @Test
+    public void testInteractiveQueryIsDispatchedBeforeBackgroundQuery() throws Exception {
+        startEngine(1, 300);
+        List<String> answered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(3);
+
+        engine.enqueueQuery(createQuery("Running", QueryPriority.INTERACTIVE), response -> {
+            answered.add("Running");
+            latch.countDown();
+        }, Assertions::fail);
+        await(() -> server.getReceivedQueries() == 1, 5000, "The first query was not sent");
+
+        // Both wait for the only instance, and the interactive query was enqueued last
+        engine.enqueueQuery(createQuery("Background", QueryPriority.BACKGROUND), response -> {
+            answered.add("Background");
+            latch.countDown();
+        }, Assertions::fail);
+        engine.enqueueQuery(createQuery("Interactive", QueryPriority.INTERACTIVE), response -> {
+            answered.add("Interactive");
+            latch.countDown();
+        }, Assertions::fail);
+
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS), "The queries were not answered");
+        Assertions.assertEquals(List.of("Running", "Interactive", "Background"), answered);
+    }
+
+    @Test
+    public void testInstanceIsKeptFreeForInteractiveQueries() throws Exception {
+        startEngine(2, 1000);
+        List<String> answered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(3);
+
+        for (String name : List.of("Background1", "Background2")) {
+            engine.enqueueQuery(createQuery(name, QueryPriority.BACKGROUND), response -> {
+                answered.add(name);
+                latch.countDown();
+            }, Assertions::fail);
+        }
+        await(() -> server.getReceivedQueries() == 1, 5000, "The first background query was not sent");
+
+        // The second background query waits, as it would occupy the last instance
+        Thread.sleep(200);
+        Assertions.assertEquals(1, server.getReceivedQueries());
+
+        engine.enqueueQuery(createQuery("Interactive", QueryPriority.INTERACTIVE), response -> {
+            answered.add("Interactive");
+            latch.countDown();
+        }, Assertions::fail);
+        await(() -> server.getReceivedQueries() == 2, 500, "The interactive query waited for a background query");
+
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS), "The queries were not answered");
+        Assertions.assertEquals(List.of("Background1", "Interactive", "Background2"), answered);
+    }
+
+    @Test
+    public void testCancelledQueryReleasesItsConnection() throws Exception {
+        startEngine(1, 5000);
+        Query query = createQuery("Machine <= Spec", QueryPriority.INTERACTIVE);
+        engine.enqueueQuery(query, response -> Assertions.fail("The cancelled query was answered"), Assertions::fail);
+        await(() -> server.getReceivedQueries() == 1, 5000, "The query was not sent");
+        Assertions.assertEquals(0, engine.getNumberOfAvailableConnections());
+
+        engine.cancelQuery(query);
+
+        // The gRPC call is cancelled instead of waiting for the engine to answer
+        await(() -> engine.getNumberOfAvailableConnections() == 1, 1000, "The connection was not released");
+        Assertions.assertEquals(0, engine.getQueueSize());
+
+        server.setLatencyMillis(0);
+        CountDownLatch latch = new CountDownLatch(1);
+        engine.enqueueQuery(createQuery("Machine2 <= Spec", QueryPriority.INTERACTIVE), response -> latch.countDown(), Assertions::fail);
+
+        Assertions.assertTrue(latch.await(1, TimeUnit.SECONDS), "The next query waited for the cancelled query");
+        Assertions.assertEquals(1, engine.getNumberOfStartedConnections());
+    }
+
+    @Test
+    public void testQueryThatExceededItsDeadlineIsRetriedWithALongerDeadline() throws Exception {
+        startEngine(1, 0);
+        server.failNextQueries(1, Status.DEADLINE_EXCEEDED);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        engine.enqueueQuery(createQuery("Machine <= Spec", QueryPriority.INTERACTIVE), response -> latch.countDown(), t -> {
+            error.set(t);
+            latch.countDown();
+        });
+
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS), "The query was not answered");
+        Assertions.assertNull(error.get());
+        Assertions.assertEquals(2, server.getReceivedQueries());
+        Assertions.assertEquals(1, engine.getMetrics().getRetries());
+
+        // The deadline of the second attempt is at least twice the deadline of the first attempt
+        List<Long> deadlines = server.getReceivedDeadlinesMillis();
+        Assertions.assertTrue(deadlines.get(1) >= 2 * deadlines.get(0) - 1000, "The deadlines were " + deadlines);
+    }
+
+    @Test
+    public void testRemovedComponentCausesAllComponentsToBeSent() throws Exception {
+        startEngine(1, 0);
+        Component removed = new Component(EnabledColor.getDefault(), "EngineTestRemoved");
+        Component kept = new Component(EnabledColor.getDefault(), "EngineTestKept");
+        Ecdar.getProject().getComponents().addAll(removed, kept);
+
+        try {
+            CountDownLatch firstLatch = new CountDownLatch(1);
+            engine.enqueueQuery(createQuery("EngineTestKept <= EngineTestRemoved", QueryPriority.INTERACTIVE), response -> firstLatch.countDown(), Assertions::fail);
+            Assertions.assertTrue(firstLatch.await(10, TimeUnit.SECONDS), "The first query was not answered");
+            Assertions.assertEquals(1, server.getComponentUpdates());
+
+            // Nothing has changed for the kept components, but the engine must stop knowing the removed one
+            Ecdar.getProject().getComponents().remove(removed);
+            CountDownLatch secondLatch = new CountDownLatch(1);
+            engine.enqueueQuery(createQuery("EngineTestKept <= EngineTestKept", QueryPriority.INTERACTIVE), response -> secondLatch.countDown(), Assertions::fail);
+            Assertions.assertTrue(secondLatch.await(10, TimeUnit.SECONDS), "The second query was not answered");
+
+            List<Integer> updateSizes = server.getComponentUpdateSizes();
+            Assertions.assertEquals(2, updateSizes.size());
+            Assertions.assertEquals(Ecdar.getProject().getComponents().size(), updateSizes.get(1));
+        } finally {
+            Ecdar.getProject().getComponents().removeAll(removed, kept);
+        }
+    }
+
+    @Test
+    public void testResponseDeadlineDoublesWithEachAttempt() {
+        Engine unconnectedEngine = new Engine();
+        long deadline = unconnectedEngine.getResponseDeadline(QueryType.REFINEMENT, 1);
+
+        Assertions.assertEquals(unconnectedEngine.getResponseDeadline(QueryType.REFINEMENT), deadline);
+        Assertions.assertEquals(2 * deadline, unconnectedEngine.getResponseDeadline(QueryType.REFINEMENT, 2));
+        Assertions.assertEquals(4 * deadline, unconnectedEngine.getResponseDeadline(QueryType.REFINEMENT, 3));
+        Assertions.assertEquals(unconnectedEngine.getResponseDeadline(QueryType.REFINEMENT, 100), unconnectedEngine.getResponseDeadline(QueryType.REFINEMENT, 101));
+    }
+}
@@ -0,0 +1,147 @@
+package ecdar.backend;
+
+import ecdar.Ecdar;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import ecdar.abstractions.QueryType;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput of the backend pipeline, from {@link Engine#enqueueQuery} through the request queue
+ * and the engine connections to the responses, against a {@link MockEngineServer}.
+ * The benchmarks are not part of the test task, run them with "gradlew benchmark".
+ * The number of queries per instance and the latency of the mock engine can be set with the system properties
+ * "benchmark.queriesPerInstance" and "benchmark.latencyMillis".
+ */
+public class EngineThroughputBenchmark {
+    private static final int[] instanceCounts = {1, 2, 4, 8, 16, 32, 64};
+    private static final int firstPort = 24000;
+    private static final int queriesPerInstance = Integer.getInteger("benchmark.queriesPerInstance", 200);
+    private static final long latencyMillis = Long.getLong("benchmark.latencyMillis", 5);
+
+    private MockEngineServer server;
+    private Engine engine;
+
+    @BeforeAll
+    static void setup() {
+        Ecdar.setUpForTest();
+    }
+
+    @BeforeEach
+    void clearCache() {
+        // Identical queries would be answered from the cache instead of the engine
+        BackendHelper.getQueryResultCache().clear();
+    }
+
+    @AfterEach
+    void stopEngine() throws BackendException {
+        if (engine != null) engine.closeConnections();
+        if (server != null) server.shutdown();
+        engine = null;
+        server = null;
+    }
+
+    @Test
+    public void benchmarkThroughput() throws Exception {
+        System.out.println("instances | queries/s | average queue wait (ms) | max queue wait (ms) | connections opened");
+
+        for (int instances : instanceCounts) {
+            Result result = run(instances, 0);
+            System.out.printf("%9d | %9.1f | %23.2f | %19d | %18d%n", instances, result.queriesPerSecond,
+                    result.averageQueueWaitMillis, result.maxQueueWaitMillis, result.openedConnections);
+
+            Assertions.assertEquals(0, result.failures);
+            stopEngine();
+        }
+    }
+
+    @Test
+    public void benchmarkConnectionChurnWithIdleConnections() throws Exception {
+        System.out.println("instances | connections opened in first round | connections opened in second round");
+
+        for (int instances : instanceCounts) {
+            Result first = run(instances, 0);
+            BackendHelper.getQueryResultCache().clear();
+
+            // Warm connections are reused in the second round, so no connections should be opened
+            long openedBefore = server.getOpenedConnections();
+            engine.getMetrics().reset();
+            Result second = runQueries(instances, "second");
+            System.out.printf("%9d | %33d | %34d%n", instances, first.openedConnections, server.getOpenedConnections() - openedBefore);
+
+            Assertions.assertEquals(0, second.failures);
+            stopEngine();
+        }
+    }
+
+    @Test
+    public void benchmarkThroughputWithFailures() throws Exception {
+        System.out.println("instances | queries/s | failed queries | retries");
+
+        for (int instances : instanceCounts) {
+            Result result = run(instances, 0.05);
+            System.out.printf("%9d | %9.1f | %14d | %7d%n", instances, result.queriesPerSecond,
+                    result.failures, engine.getMetrics().getRetries());
+
+            stopEngine();
+        }
+    }
+
+    private Result run(int instances, double failureRate) throws Exception {
+        server = new MockEngineServer();
+        server.setLatencyMillis(latencyMillis);
+        server.setFailureRate(failureRate, Status.INTERNAL.withDescription("Mock engine failure"));
+        server.start(instances, firstPort);
+
+        engine = server.createEngine("Benchmark engine");
+        engine.setIdleTimeout(0);
+
+        return runQueries(instances, "first");
+    }
+
+    private Result runQueries(int instances, String round) throws InterruptedException {
+        int numberOfQueries = instances * queriesPerInstance;
+        CountDownLatch latch = new CountDownLatch(numberOfQueries);
+        AtomicInteger failures = new AtomicInteger();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < numberOfQueries; i++) {
+            // Distinct queries, such that they are neither cached nor coalesced
+            Query query = new Query("Machine" + i + " <= Spec" + round, "", QueryState.UNKNOWN, engine);
+            query.setType(QueryType.REFINEMENT);
+
+            engine.enqueueQuery(query, response -> latch.countDown(), error -> {
+                failures.incrementAndGet();
+                latch.countDown();
+            });
+        }
+
+        Assertions.assertTrue(latch.await(5, TimeUnit.MINUTES), "The queries were not answered in time");
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Result result = new Result();
+        result.queriesPerSecond = numberOfQueries / elapsedSeconds;
+        result.averageQueueWaitMillis = engine.getMetrics().getAverageQueueWaitMillis();
+        result.maxQueueWaitMillis = engine.getMetrics().getMaxQueueWaitMillis();
+        result.openedConnections = server.getOpenedConnections();
+        result.failures = failures.get();
+        return result;
+    }
+
+    private static class Result {
+        double queriesPerSecond;
+        double averageQueueWaitMillis;
+        long maxQueueWaitMillis;
+        long openedConnections;
+        int failures;
+    }
+}
@@ -0,0 +1,32 @@
+package ecdar.backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyWindowTest {
+    @Test
+    public void testEmptyWindowHasNoPercentile() {
+        Assertions.assertEquals(-1, new LatencyWindow(10).getPercentile(0.95));
+    }
+
+    @Test
+    public void testPercentileUsesNearestRank() {
+        LatencyWindow window = new LatencyWindow(100);
+        for (int i = 100; i >= 1; i--) window.record(i);
+
+        Assertions.assertEquals(95, window.getPercentile(0.95));
+        Assertions.assertEquals(50, window.getPercentile(0.5));
+        Assertions.assertEquals(100, window.getPercentile(1));
+    }
+
+    @Test
+    public void testOldestLatenciesAreOverwritten() {
+        LatencyWindow window = new LatencyWindow(2);
+        window.record(1000);
+        window.record(10);
+        window.record(20);
+
+        Assertions.assertEquals(2, window.size());
+        Assertions.assertEquals(20, window.getPercentile(1));
+    }
+}
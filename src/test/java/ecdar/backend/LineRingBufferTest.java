@@ -0,0 +1,30 @@
+package ecdar.backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class LineRingBufferTest {
+    @Test
+    public void testOldestLinesAreOverwrittenWhenFull() {
+        LineRingBuffer buffer = new LineRingBuffer(3);
+        buffer.add("a");
+        buffer.add("b");
+        buffer.add("c");
+        buffer.add("d");
+
+        Assertions.assertEquals(3, buffer.size());
+        Assertions.assertEquals(List.of("b", "c", "d"), buffer.getLastLines(10));
+    }
+
+    @Test
+    public void testLastLinesAreReturnedOldestFirst() {
+        LineRingBuffer buffer = new LineRingBuffer(5);
+        buffer.add("a");
+        buffer.add("b");
+        buffer.add("c");
+
+        Assertions.assertEquals(List.of("b", "c"), buffer.getLastLines(2));
+    }
+}
@@ -0,0 +1,238 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.EcdarBackendGrpc;
+import EcdarProtoBuf.QueryProtos;
+import com.google.protobuf.Empty;
+import io.grpc.Attributes;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Server;
+import io.grpc.ServerTransportFilter;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Stand-in for the engine binaries, which implements the gRPC service of the engines inside the test JVM.
+ * One server is started per instance on consecutive ports of the loopback address,
+ * such that a remote {@link Engine} with the same port range connects to it exactly as it would to real engines.
+ * The latency, failure rate, and responses of the queries are configurable.
+ */
+public class MockEngineServer {
+    private final List<Server> servers = new ArrayList<>();
+    private final ScheduledExecutorService responseScheduler = Executors.newScheduledThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "Mock engine responses");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong receivedQueries = new AtomicLong();
+    private final AtomicLong componentUpdates = new AtomicLong();
+    private final AtomicLong openedConnections = new AtomicLong();
+    private final List<Long> receivedDeadlinesMillis = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> componentUpdateSizes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger queriesToFail = new AtomicInteger();
+
+    private volatile long latencyMillis = 0;
+    private volatile double failureRate = 0;
+    private volatile Status failureStatus = Status.INTERNAL.withDescription("Mock engine failure");
+    private volatile Function<QueryProtos.Query, QueryProtos.QueryResponse> responder =
+            query -> QueryProtos.QueryResponse.getDefaultInstance();
+    private int portStart = -1;
+
+    /**
+     * Starts the given number of instances on the first free range of consecutive ports from the given port
+     *
+     * @param numberOfInstances the number of instances to start
+     * @param firstPort         the lowest port to try
+     * @throws IOException if no free range was found below port 65535
+     */
+    public void start(int numberOfInstances, int firstPort) throws IOException {
+        for (int candidate = firstPort; candidate + numberOfInstances - 1 <= 65535; candidate += numberOfInstances) {
+            try {
+                for (int port = candidate; port < candidate + numberOfInstances; port++) {
+                    servers.add(buildServer(port).start());
+                }
+
+                portStart = candidate;
+                return;
+            } catch (IOException e) {
+                // Part of the range is taken, so try the next range
+                shutdownServers();
+            }
+        }
+
+        throw new IOException("No free range of " + numberOfInstances + " ports from " + firstPort);
+    }
+
+    private Server buildServer(int port) {
+        return NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", port))
+                .addService(new MockEngineService())
+                .addTransportFilter(new ServerTransportFilter() {
+                    @Override
+                    public Attributes transportReady(Attributes transportAttrs) {
+                        openedConnections.incrementAndGet();
+                        return transportAttrs;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Stops all instances and the scheduling of responses
+     */
+    public void shutdown() {
+        shutdownServers();
+        responseScheduler.shutdownNow();
+    }
+
+    private void shutdownServers() {
+        for (Server server : servers) {
+            server.shutdownNow();
+            try {
+                server.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        servers.clear();
+    }
+
+    /**
+     * Creates a remote engine that is configured to connect to all instances of this server
+     *
+     * @param name the name of the engine
+     * @return the engine
+     */
+    public Engine createEngine(String name) {
+        Engine engine = new Engine();
+        engine.setName(name);
+        engine.setLocal(false);
+        engine.setEngineLocation("127.0.0.1");
+        engine.setPortStart(portStart);
+        engine.setPortEnd(portStart + servers.size() - 1);
+        return engine;
+    }
+
+    /**
+     * @param latencyMillis the time that each instance takes to answer a query
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * @param failureRate   the share of queries, between 0 and 1, that are answered with the failure status
+     * @param failureStatus the status of failed queries
+     */
+    public void setFailureRate(double failureRate, Status failureStatus) {
+        this.failureRate = failureRate;
+        this.failureStatus = failureStatus;
+    }
+
+    /**
+     * Answers the next queries with the failure status, regardless of the failure rate
+     *
+     * @param numberOfQueries the number of queries to fail
+     * @param failureStatus   the status of the failed queries
+     */
+    public void failNextQueries(int numberOfQueries, Status failureStatus) {
+        this.failureStatus = failureStatus;
+        queriesToFail.set(numberOfQueries);
+    }
+
+    /**
+     * @param responder the function that creates the response to each query that does not fail
+     */
+    public void setResponder(Function<QueryProtos.Query, QueryProtos.QueryResponse> responder) {
+        this.responder = responder;
+    }
+
+    public int getPortStart() {
+        return portStart;
+    }
+
+    public long getReceivedQueries() {
+        return receivedQueries.get();
+    }
+
+    /**
+     * Get the deadline that each query was sent with, in the order they were received
+     *
+     * @return the remaining time of each deadline when the query was received in milliseconds, or -1 for no deadline
+     */
+    public List<Long> getReceivedDeadlinesMillis() {
+        synchronized (receivedDeadlinesMillis) {
+            return new ArrayList<>(receivedDeadlinesMillis);
+        }
+    }
+
+    public long getComponentUpdates() {
+        return componentUpdates.get();
+    }
+
+    /**
+     * Get the number of components in each component update, in the order they were received
+     *
+     * @return the number of components of each update
+     */
+    public List<Integer> getComponentUpdateSizes() {
+        synchronized (componentUpdateSizes) {
+            return new ArrayList<>(componentUpdateSizes);
+        }
+    }
+
+    /**
+     * Get the number of connections that clients have opened to the instances
+     *
+     * @return the number of opened connections
+     */
+    public long getOpenedConnections() {
+        return openedConnections.get();
+    }
+
+    private class MockEngineService extends EcdarBackendGrpc.EcdarBackendImplBase {
+        @Override
+        public void updateComponents(QueryProtos.ComponentsUpdateRequest request, StreamObserver<Empty> responseObserver) {
+            componentUpdates.incrementAndGet();
+            componentUpdateSizes.add(request.getComponentsCount());
+            responseObserver.onNext(Empty.getDefaultInstance());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void sendQuery(QueryProtos.Query request, StreamObserver<QueryProtos.QueryResponse> responseObserver) {
+            receivedQueries.incrementAndGet();
+            Deadline deadline = Context.current().getDeadline();
+            receivedDeadlinesMillis.add(deadline == null ? -1 : deadline.timeRemaining(TimeUnit.MILLISECONDS));
+            responseScheduler.schedule(() -> respond(request, responseObserver), latencyMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void respond(QueryProtos.Query request, StreamObserver<QueryProtos.QueryResponse> responseObserver) {
+            // The client has given up on the query, for instance because it was cancelled or exceeded its deadline
+            if (((ServerCallStreamObserver<QueryProtos.QueryResponse>) responseObserver).isCancelled()) return;
+
+            if (queriesToFail.getAndUpdate(n -> Math.max(n - 1, 0)) > 0 || ThreadLocalRandom.current().nextDouble() < failureRate) {
+                responseObserver.onError(failureStatus.asRuntimeException());
+                return;
+            }
+
+            responseObserver.onNext(responder.apply(request));
+            responseObserver.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ecdar.backend;
+
+import ecdar.Ecdar;
+import ecdar.abstractions.*;
+import ecdar.utility.colors.EnabledColor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+public class QueryDependencyIndexTest {
+    @BeforeAll
+    static void setup() {
+        Ecdar.setUpForTest();
+    }
+
+    @Test
+    public void testQueriesReferencingComponentAreDependent() {
+        Project project = new Project();
+        project.getComponents().add(new Component(EnabledColor.getDefault(), "A"));
+        project.getComponents().add(new Component(EnabledColor.getDefault(), "B"));
+
+        Query first = new Query("(A || B) <= Spec", "", QueryState.UNKNOWN, null);
+        Query second = new Query("B <= Spec", "", QueryState.UNKNOWN, null);
+        project.getQueries().add(first);
+        project.getQueries().add(second);
+
+        Assertions.assertEquals(List.of(first), new QueryDependencyIndex().getDependentQueries(Set.of("A"), project));
+    }
+
+    @Test
+    public void testQueriesReferencingSystemWithComponentAreDependent() {
+        Project project = new Project();
+        Component component = new Component(EnabledColor.getDefault(), "A");
+        project.getComponents().add(component);
+
+        EcdarSystem system = new EcdarSystem(EnabledColor.getDefault(), "System");
+        ComponentInstance instance = new ComponentInstance(system);
+        instance.setComponent(component);
+        system.getComponentInstances().add(instance);
+        project.getSystems().add(system);
+
+        Query query = new Query("System <= Spec", "", QueryState.UNKNOWN, null);
+        project.getQueries().add(query);
+
+        Assertions.assertEquals(List.of(query), new QueryDependencyIndex().getDependentQueries(Set.of("A"), project));
+        Assertions.assertTrue(new QueryDependencyIndex().getDependentQueries(Set.of("C"), project).isEmpty());
+    }
+}
@@ -0,0 +1,36 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.QueryProtos;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class QueryResultCacheTest {
+    private final QueryProtos.QueryResponse response = QueryProtos.QueryResponse.getDefaultInstance();
+
+    @Test
+    public void testLookupsAreCountedAsHitsAndMisses() {
+        QueryResultCache cache = new QueryResultCache(10);
+        cache.put("a", response);
+
+        Assertions.assertTrue(cache.get("a").isPresent());
+        Assertions.assertFalse(cache.get("b").isPresent());
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResponseIsEvicted() {
+        QueryResultCache cache = new QueryResultCache(2);
+        cache.put("a", response);
+        cache.put("b", response);
+
+        // Use "a", such that "b" becomes the least recently used response
+        cache.get("a");
+        cache.put("c", response);
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertTrue(cache.get("a").isPresent());
+        Assertions.assertFalse(cache.get("b").isPresent());
+        Assertions.assertTrue(cache.get("c").isPresent());
+    }
+}
@@ -0,0 +1,58 @@
+package ecdar.backend;
+
+import ecdar.abstractions.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public class ReachabilityCacheTest {
+    @Test
+    public void testReachabilityIsCachedPerFingerprint() {
+        ReachabilityCache cache = new ReachabilityCache(10);
+        cache.put("a", "L0", Location.Reachability.REACHABLE);
+        cache.put("b", "L0", Location.Reachability.UNREACHABLE);
+
+        Assertions.assertEquals(Optional.of(Location.Reachability.REACHABLE), cache.get("a", "L0"));
+        Assertions.assertEquals(Optional.of(Location.Reachability.UNREACHABLE), cache.get("b", "L0"));
+        Assertions.assertEquals(Optional.empty(), cache.get("a", "L1"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFingerprintIsEvicted() {
+        ReachabilityCache cache = new ReachabilityCache(2);
+        cache.put("a", "L0", Location.Reachability.REACHABLE);
+        cache.put("b", "L0", Location.Reachability.REACHABLE);
+
+        // Use "a", such that "b" is the least recently used fingerprint
+        cache.get("a", "L0");
+        cache.put("c", "L0", Location.Reachability.REACHABLE);
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertTrue(cache.get("a", "L0").isPresent());
+        Assertions.assertFalse(cache.get("b", "L0").isPresent());
+    }
+
+    @Test
+    public void testSavedReachabilityIsLoaded(@TempDir Path directory) throws IOException {
+        ReachabilityCache cache = new ReachabilityCache(10);
+        cache.put("a", "L0", Location.Reachability.REACHABLE);
+        cache.put("a", "L1", Location.Reachability.UNREACHABLE);
+        cache.put("b", "L0", Location.Reachability.UNKNOWN);
+
+        File file = directory.resolve(ReachabilityCache.FILE_NAME).toFile();
+        cache.save(file);
+
+        ReachabilityCache loaded = new ReachabilityCache(10);
+        loaded.load(file);
+
+        Assertions.assertEquals(2, loaded.size());
+        Assertions.assertEquals(Optional.of(Location.Reachability.REACHABLE), loaded.get("a", "L0"));
+        Assertions.assertEquals(Optional.of(Location.Reachability.UNREACHABLE), loaded.get("a", "L1"));
+        Assertions.assertEquals(Optional.of(Location.Reachability.UNKNOWN), loaded.get("b", "L0"));
+    }
+}